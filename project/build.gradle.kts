@@ -2,6 +2,7 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.5.4"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "ict"
@@ -61,6 +62,9 @@ dependencies {
 	// 텍스트 유틸 (문장/청크 나누기 등에 사용하면 편함)
 	implementation("org.apache.commons:commons-text:1.11.0")
 
+	// 로컬 BPE 토큰 카운트 (프롬프트/임베딩 입력 토큰 상한)
+	implementation("com.knuddels:jtokkit:1.1.0")
+
 	implementation("org.apache.pdfbox:pdfbox:2.0.31")
 	implementation("org.apache.pdfbox:fontbox:2.0.31")
 	implementation("com.fasterxml.jackson.core:jackson-databind:2.17.1")
@@ -82,6 +86,19 @@ dependencyManagement {
 	}
 }
 
+// 요청 경로 텍스트 처리 마이크로벤치마크 (src/jmh/java)
+// 실행: ./gradlew jmh  (특정 벤치만: ./gradlew jmh -Pjmh.includes=RuleDetector)
+jmh {
+	jmhVersion = "1.37"
+	fork = 1
+	warmupIterations = 3
+	iterations = 5
+	// gc 프로파일러 → gc.alloc.rate / gc.alloc.rate.norm(연산 1회당 할당 바이트) 함께 출력
+	profilers.add("gc")
+	resultFormat = "JSON"
+	findProperty("jmh.includes")?.let { includes.add(it.toString()) }
+}
+
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
@@ -0,0 +1,60 @@
+package ict.project.bench;
+
+import java.util.List;
+
+/**
+ * 벤치마크 공용 입력: 실제 자소서/답변과 비슷한 한국어 문장을 섞어 원하는 길이로 생성.
+ * 매번 같은 결과가 나오도록 고정 순서로 이어 붙임 (난수 없음).
+ */
+final class BenchTexts {
+
+    private BenchTexts() {}
+
+    /** 답변 크기: short ≈ 300자(문항 답변 1개), medium ≈ 3천자(자소서 1편), long ≈ 3만자(코퍼스 파일) */
+    static final String SHORT = "short";
+    static final String MEDIUM = "medium";
+    static final String LONG = "long";
+
+    static final List<String> JD_KEYWORDS = List.of(
+            "Spring Boot", "JPA", "Kafka", "Redis", "MySQL", "Docker", "Kubernetes",
+            "REST API", "AWS", "CI/CD", "테스트 코드", "대용량 트래픽", "MSA", "모니터링");
+
+    private static final String[] SENTENCES = {
+            "대학교 3학년 때 교내 동아리에서 백엔드 개발을 맡아 수강신청 보조 서비스를 만들었습니다.",
+            "사용자가 몰리는 시간대에 응답이 느려지는 문제가 있었고, 원인을 찾기 위해 쿼리 실행 계획을 분석했습니다.",
+            "인덱스를 추가하고 N+1 문제를 fetch join 으로 해결해서 평균 응답 시간을 1.2초에서 180ms 로 줄였습니다.",
+            "팀원들과 코드 리뷰 규칙을 정하고 매주 회고를 진행하면서 협업 방식이 많이 개선되었습니다.",
+            "Spring Boot 와 JPA 를 사용했고, 배포는 Docker 이미지로 만들어 AWS EC2 에 올렸습니다.",
+            "처음에는 테스트 코드 없이 개발했지만 장애를 겪은 뒤 핵심 로직에 단위 테스트를 도입했습니다.",
+            "이 경험을 통해 문제를 수치로 확인하고 개선하는 습관이 중요하다는 것을 배웠습니다.",
+            "인턴십에서는 주문 이벤트를 Kafka 로 발행하고 정산 서비스에서 소비하는 구조를 맡았습니다.",
+            "중복 소비를 막기 위해 멱등 키를 두고, 실패 메시지는 재처리 토픽으로 보냈습니다.",
+            "그 결과 정산 누락 건수가 월 40건에서 0건으로 줄었고 운영 문의도 크게 감소했습니다.",
+            "고객 입장에서 불편한 점을 먼저 생각하는 태도가 좋았다는 피드백을 받았습니다.",
+            "앞으로도 안정적인 서비스를 만드는 개발자로 성장하는 데 도움이 될 것 같다고 생각합니다.",
+            "Redis 캐시를 도입할 때는 만료 정책과 캐시 무효화 시점을 팀과 함께 정리했습니다.",
+            "모니터링 대시보드를 만들어 에러율과 p95 지연 시간을 매일 확인했습니다.",
+            "새로운 기술을 빠르게 익히고 팀에 공유하는 것을 좋아합니다."
+    };
+
+    /** 대략 targetChars 길이의 본문 (문장 경계에서 끊음) */
+    static String text(int targetChars) {
+        StringBuilder sb = new StringBuilder(targetChars + 128);
+        int i = 0;
+        while (sb.length() < targetChars) {
+            if (i > 0) sb.append(i % 5 == 0 ? "\n\n" : " ");
+            sb.append(SENTENCES[i % SENTENCES.length]);
+            i++;
+        }
+        return sb.toString();
+    }
+
+    static String ofSize(String size) {
+        return switch (size) {
+            case SHORT -> text(300);
+            case MEDIUM -> text(3_000);
+            case LONG -> text(30_000);
+            default -> throw new IllegalArgumentException("unknown size: " + size);
+        };
+    }
+}
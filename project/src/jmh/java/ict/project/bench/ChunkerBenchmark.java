@@ -0,0 +1,35 @@
+package ict.project.bench;
+
+import ict.project.resume.service.Chunker;
+import ict.project.resume.service.ChunkingEngine;
+import ict.project.resume.service.TokenCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** 문장 경계 청크 분할 (업로드/인제스트 경로) */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkerBenchmark {
+
+    @Param({BenchTexts.SHORT, BenchTexts.MEDIUM, BenchTexts.LONG})
+    public String size;
+
+    @Param({"800"})
+    public int maxLen;
+
+    private final Chunker chunker = new Chunker(new ChunkingEngine(new TokenCounter()));
+    private String text;
+
+    @Setup
+    public void setup() {
+        text = BenchTexts.ofSize(size);
+    }
+
+    @Benchmark
+    public List<String> chunk() {
+        return chunker.chunk(text, maxLen);
+    }
+}
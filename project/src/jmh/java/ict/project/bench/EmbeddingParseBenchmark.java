@@ -0,0 +1,76 @@
+package ict.project.bench;
+
+import ict.project.resume.service.OpenAiEmbeddingClientHttp;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 임베딩 응답 디코딩 + float[] 변환 (OpenAiEmbeddingClientHttp.embed)
+ * 네트워크 대신 미리 만든 JSON 을 돌려주는 exchangeFunction 사용 → 코덱/파싱 비용만 측정
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmbeddingParseBenchmark {
+
+    /** 배치 입력 수 */
+    @Param({"1", "16", "64"})
+    public int inputs;
+
+    @Param({"1536"})
+    public int dim;
+
+    private OpenAiEmbeddingClientHttp client;
+    private List<String> texts;
+
+    @Setup
+    public void setup() {
+        String body = responseJson(inputs, dim);
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://bench.local/v1")
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(32 * 1024 * 1024))
+                .exchangeFunction(req -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(body)
+                        .build()))
+                .build();
+        client = new OpenAiEmbeddingClientHttp(webClient, "text-embedding-3-small");
+
+        texts = new ArrayList<>(inputs);
+        for (int i = 0; i < inputs; i++) texts.add(BenchTexts.text(300));
+    }
+
+    @Benchmark
+    public List<float[]> embed() {
+        return client.embed(null, texts);
+    }
+
+    /** OpenAI /embeddings 응답 형태 (값은 실제처럼 -0.1~0.1 근처의 긴 소수) */
+    private static String responseJson(int n, int dim) {
+        Random rnd = new Random(42);
+        StringBuilder sb = new StringBuilder(n * dim * 22 + 256);
+        sb.append("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"object\":\"embedding\",\"index\":").append(i).append(",\"embedding\":[");
+            for (int d = 0; d < dim; d++) {
+                if (d > 0) sb.append(',');
+                sb.append((rnd.nextFloat() - 0.5f) * 0.2f);
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"model\":\"text-embedding-3-small\",\"usage\":{\"prompt_tokens\":")
+                .append(n * 120).append(",\"total_tokens\":").append(n * 120).append("}}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,135 @@
+package ict.project.bench;
+
+import ict.project.feedback.api.dto.Annotation;
+import ict.project.feedback.api.dto.FeedbackItem;
+import ict.project.feedback.api.dto.FeedbackResponse;
+import ict.project.feedback.core.PromptFactory;
+import ict.project.resume.config.RagProperties;
+import ict.project.resume.entity.RagSettingsEntity;
+import ict.project.resume.repository.RagChunkRepository;
+import ict.project.resume.repository.RagSettingsRepository;
+import ict.project.resume.service.ChunkingEngine;
+import ict.project.resume.service.RagService;
+import ict.project.resume.service.TokenCounter;
+import ict.project.user.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프롬프트 문자열 조립
+ * - PromptFactory.user: 재작성 1건당 1회
+ * - RagService.buildFeedbackPrompt: 저장소는 메모리 스텁(동적 프록시) → 순수 문자열 조립 비용만 측정
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptBenchmark {
+
+    @Param({BenchTexts.SHORT, BenchTexts.MEDIUM, BenchTexts.LONG})
+    public String size;
+
+    private FeedbackResponse ctx;
+    private FeedbackItem item;
+    private RagService ragService;
+
+    @Setup
+    public void setup() throws Exception {
+        String answer = BenchTexts.ofSize(size);
+
+        item = new FeedbackItem();
+        item.setQid("q1");
+        item.setAnswer(answer);
+        item.setAnnotations(List.of(
+                new Annotation(new Annotation.Span(0, 16, answer.substring(0, 16)), "no_metric", "전후 수치를 넣어주세요", "예) LCP 4.3초→2.6초"),
+                new Annotation(new Annotation.Span(20, 22, answer.substring(20, 22)), "vague", "방법을 더 구체적으로 써주세요", null)));
+        ctx = new FeedbackResponse("1.0", "bench", List.of("전후 수치 1개 포함", "STAR 3문장 유지", "JD 키워드 1개 명시"), List.of(item));
+
+        // 코퍼스/이력서/공고 청크: 크기별 본문을 1500자 단위로 나눠 저장돼 있다고 가정
+        Map<String, List<String>> bySource = Map.of(
+                "CORPUS", chunks(BenchTexts.text(30_000)),
+                "RESUME", chunks(answer),
+                "POSTING", chunks(BenchTexts.text(3_000)));
+        RagSettingsEntity setting = new RagSettingsEntity();
+        setting.setName("resume_feedback");
+        setting.setPromptText("합격자 자소서들이야 이걸 토대로 앞으로의 사용자들의 자소서를 피드백해줘");
+
+        RagChunkRepository chunkRepo = stub(RagChunkRepository.class, (name, args) -> switch (name) {
+            case "findContents" -> page(bySource.getOrDefault((String) args[1], List.of()), (Pageable) args[2]);
+            case "findContentsAfter" -> keyset(bySource.getOrDefault((String) args[1], List.of()), (Integer) args[2], (Pageable) args[3]);
+            case "countByUserIdAndSource" -> (long) bySource.getOrDefault((String) args[1], List.of()).size();
+            default -> null;
+        });
+        RagSettingsRepository settingsRepo = stub(RagSettingsRepository.class, (name, args) ->
+                "findByName".equals(name) ? Optional.of(setting) : null);
+        UserRepository userRepo = stub(UserRepository.class, (name, args) ->
+                "existsById".equals(name) ? Boolean.TRUE : null);
+
+        TokenCounter tokens = new TokenCounter();
+        // 설정은 운영 기본값 그대로 (저장 경로 JdbcWriter 는 측정 대상 아님)
+        ragService = new RagService(chunkRepo, settingsRepo, userRepo, tokens, null, new ChunkingEngine(tokens), new RagProperties());
+        ragService.buildFeedbackPrompt(2, true); // 코퍼스 색인 캐시 채우기 (첫 호출만 재구성을 기다림)
+    }
+
+    @Benchmark
+    public String promptFactoryUser() {
+        return PromptFactory.user(ctx, item, BenchTexts.JD_KEYWORDS);
+    }
+
+    @Benchmark
+    public String buildFeedbackPrompt() {
+        return ragService.buildFeedbackPrompt(2, true);
+    }
+
+    private static List<String> chunks(String text) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += 1500) {
+            out.add(text.substring(i, Math.min(text.length(), i + 1500)));
+        }
+        return out;
+    }
+
+    /** LIMIT/OFFSET 흉내 */
+    private static List<String> page(List<String> all, Pageable pageable) {
+        int from = (int) Math.min(all.size(), pageable.getOffset());
+        return all.subList(from, Math.min(all.size(), from + pageable.getPageSize()));
+    }
+
+    /** rag_id = 목록 순번 + 1 로 보고 키셋 페이징 흉내 */
+    private static List<RagChunkRepository.ContentRow> keyset(List<String> all, Integer after, Pageable pageable) {
+        List<RagChunkRepository.ContentRow> out = new ArrayList<>();
+        for (int i = Math.max(0, after); i < all.size() && out.size() < pageable.getPageSize(); i++) {
+            out.add(new Row(i + 1, all.get(i)));
+        }
+        return out;
+    }
+
+    private record Row(Integer getRagId, String getContent) implements RagChunkRepository.ContentRow {}
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(String method, Object[] args);
+    }
+
+    /** 필요한 조회 메서드만 응답하는 저장소 스텁 (그 외 호출은 실패시켜 벤치 전제 위반을 바로 드러냄) */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString" -> { return type.getSimpleName() + "Stub"; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "equals" -> { return proxy == args[0]; }
+                default -> { }
+            }
+            Object result = handler.handle(method.getName(), args);
+            if (result == null) throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            return result;
+        });
+    }
+}
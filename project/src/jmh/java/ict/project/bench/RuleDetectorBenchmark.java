@@ -0,0 +1,37 @@
+package ict.project.bench;
+
+import ict.project.feedback.core.RuleDetector;
+import ict.project.feedback.core.RuleRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** 규칙 탐지(답변 1개) — 규칙 수/JD 키워드 수가 늘어도 답변 길이에만 비례해야 함 */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RuleDetectorBenchmark {
+
+    @Param({BenchTexts.SHORT, BenchTexts.MEDIUM, BenchTexts.LONG})
+    public String size;
+
+    private RuleDetector detector;
+    private String answer;
+
+    @Setup
+    public void setup() {
+        detector = new RuleDetector(RuleRegistry.load("classpath:feedback-rules.json"));
+        answer = BenchTexts.ofSize(size);
+    }
+
+    @Benchmark
+    public List<RuleDetector.SpanHit> detect() {
+        return detector.detect(answer, BenchTexts.JD_KEYWORDS);
+    }
+
+    @Benchmark
+    public List<RuleDetector.SpanHit> findJdKeywords() {
+        return detector.findJdKeywords(answer, BenchTexts.JD_KEYWORDS);
+    }
+}
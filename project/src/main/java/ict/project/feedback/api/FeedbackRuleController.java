@@ -0,0 +1,28 @@
+package ict.project.feedback.api;
+
+import ict.project.feedback.core.RuleRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/feedback/rules")
+@RequiredArgsConstructor
+public class FeedbackRuleController {
+
+    private final RuleRegistry ruleRegistry;
+
+    /** 현재 적용 중인 규칙 목록/로드 상태 */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> rules() {
+        return ResponseEntity.ok(ruleRegistry.summary());
+    }
+
+    /** 규칙 파일 즉시 다시 읽기 (실패 시 기존 규칙 유지, 응답에 error 포함) */
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        return ResponseEntity.ok(ruleRegistry.reload());
+    }
+}
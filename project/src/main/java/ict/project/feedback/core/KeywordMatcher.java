@@ -0,0 +1,192 @@
+package ict.project.feedback.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 다중 키워드 매처 (Aho-Corasick, 대소문자 무시)
+ * - 한 번 컴파일해 두면 본문을 한 번만 훑어서 모든 키워드의 모든 출현 위치를 찾음 → O(본문 길이 + 매치 수)
+ * - 문자 단위로 Character.toLowerCase 비교 → 본문/키워드 lowercase 문자열을 새로 만들지 않음
+ * - 컴파일 후에는 불변이라 여러 스레드에서 공유 가능
+ */
+public final class KeywordMatcher {
+
+    /** [start, end) 는 원문 기준 오프셋, keyword 는 keywords() 의 인덱스 */
+    public record Match(int start, int end, int keyword) {}
+
+    private final String[] keywords;
+    private final int[] keywordLength;
+
+    // 노드별 전이: 정렬된 문자 배열 + 다음 노드 (이진 탐색)
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    /** 이 노드에서 끝나는 키워드 (없으면 -1) */
+    private final int[] terminal;
+    /** fail 체인에서 가장 가까운 "키워드가 끝나는" 노드 (없으면 -1) */
+    private final int[] dictLink;
+
+    private KeywordMatcher(String[] keywords, char[][] edgeChars, int[][] edgeTargets,
+                           int[] fail, int[] terminal, int[] dictLink) {
+        this.keywords = keywords;
+        this.keywordLength = new int[keywords.length];
+        for (int i = 0; i < keywords.length; i++) keywordLength[i] = keywords[i].length();
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.terminal = terminal;
+        this.dictLink = dictLink;
+    }
+
+    /** 키워드 목록으로 컴파일 (공백/빈 값 제외, 대소문자만 다른 중복 제거) */
+    public static KeywordMatcher compile(Collection<String> keywords) {
+        Set<String> uniq = new LinkedHashSet<>();
+        Set<String> seenLower = new LinkedHashSet<>();
+        if (keywords != null) {
+            for (String k : keywords) {
+                if (k == null) continue;
+                String t = k.trim();
+                if (t.isEmpty()) continue;
+                if (seenLower.add(lower(t))) uniq.add(t);
+            }
+        }
+        String[] kw = uniq.toArray(new String[0]);
+
+        // 1) trie (빌드 중에는 가변 리스트 사용)
+        List<char[]> chars = new ArrayList<>();
+        List<int[]> targets = new ArrayList<>();
+        List<Integer> term = new ArrayList<>();
+        chars.add(new char[0]);
+        targets.add(new int[0]);
+        term.add(-1);
+
+        for (int k = 0; k < kw.length; k++) {
+            int node = 0;
+            String w = kw[k];
+            for (int i = 0; i < w.length(); i++) {
+                char c = Character.toLowerCase(w.charAt(i));
+                int next = find(chars.get(node), targets.get(node), c);
+                if (next < 0) {
+                    next = chars.size();
+                    chars.add(new char[0]);
+                    targets.add(new int[0]);
+                    term.add(-1);
+                    insertEdge(chars, targets, node, c, next);
+                }
+                node = next;
+            }
+            if (term.get(node) < 0) term.set(node, k);
+        }
+
+        int n = chars.size();
+        char[][] edgeChars = chars.toArray(new char[0][]);
+        int[][] edgeTargets = targets.toArray(new int[0][]);
+        int[] terminal = new int[n];
+        for (int i = 0; i < n; i++) terminal[i] = term.get(i);
+
+        // 2) fail / dictionary 링크 (BFS)
+        int[] fail = new int[n];
+        int[] dictLink = new int[n];
+        Arrays.fill(dictLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            char[] cs = edgeChars[u];
+            int[] ts = edgeTargets[u];
+            for (int i = 0; i < cs.length; i++) {
+                int v = ts[i];
+                int f = fail[u];
+                int nx;
+                while ((nx = find(edgeChars[f], edgeTargets[f], cs[i])) < 0 && f != 0) f = fail[f];
+                fail[v] = (nx >= 0 && nx != v) ? nx : 0;
+                int fv = fail[v];
+                dictLink[v] = terminal[fv] >= 0 ? fv : dictLink[fv];
+                queue.add(v);
+            }
+        }
+        return new KeywordMatcher(kw, edgeChars, edgeTargets, fail, terminal, dictLink);
+    }
+
+    public boolean isEmpty() {
+        return keywords.length == 0;
+    }
+
+    public String keyword(int index) {
+        return keywords[index];
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    /** 모든 출현 위치 (시작 위치 오름차순이 아니라 끝 위치 순서로 반환됨) */
+    public List<Match> findAll(CharSequence text) {
+        List<Match> out = new ArrayList<>();
+        if (text == null || keywords.length == 0) return out;
+        int node = 0;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            node = step(node, Character.toLowerCase(text.charAt(i)));
+            for (int t = terminal[node] >= 0 ? node : dictLink[node]; t >= 0; t = dictLink[t]) {
+                int k = terminal[t];
+                out.add(new Match(i + 1 - keywordLength[k], i + 1, k));
+            }
+        }
+        return out;
+    }
+
+    /** 하나라도 포함하면 true (첫 매치에서 바로 종료) */
+    public boolean containsAny(CharSequence text) {
+        if (text == null || keywords.length == 0) return false;
+        int node = 0;
+        for (int i = 0, len = text.length(); i < len; i++) {
+            node = step(node, Character.toLowerCase(text.charAt(i)));
+            if (terminal[node] >= 0 || dictLink[node] >= 0) return true;
+        }
+        return false;
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            int nx = find(edgeChars[node], edgeTargets[node], c);
+            if (nx >= 0) return nx;
+            if (node == 0) return 0;
+            node = fail[node];
+        }
+    }
+
+    private static int find(char[] cs, int[] ts, char c) {
+        int i = Arrays.binarySearch(cs, c);
+        return i >= 0 ? ts[i] : -1;
+    }
+
+    private static void insertEdge(List<char[]> chars, List<int[]> targets, int node, char c, int next) {
+        char[] cs = chars.get(node);
+        int[] ts = targets.get(node);
+        int pos = -(Arrays.binarySearch(cs, c) + 1);
+        char[] ncs = new char[cs.length + 1];
+        int[] nts = new int[ts.length + 1];
+        System.arraycopy(cs, 0, ncs, 0, pos);
+        System.arraycopy(ts, 0, nts, 0, pos);
+        ncs[pos] = c;
+        nts[pos] = next;
+        System.arraycopy(cs, pos, ncs, pos + 1, cs.length - pos);
+        System.arraycopy(ts, pos, nts, pos + 1, ts.length - pos);
+        chars.set(node, ncs);
+        targets.set(node, nts);
+    }
+
+    private static String lower(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) sb.append(Character.toLowerCase(s.charAt(i)));
+        return sb.toString();
+    }
+}
@@ -1,6 +1,20 @@
 package ict.project.feedback.core;
 
+import java.util.Map;
+
 public interface LlmClient {
     LlmRewrite rewrite(String systemPrompt, String userPrompt);
-}
 
+    /** 캐시 키에 들어가는 모델 식별자 (모델이 바뀌면 이전 결과를 재사용하지 않도록) */
+    default String modelId() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * 여러 항목을 한 번의 호출로 재작성 (qid → 결과).
+     * 지원하지 않거나 실패/파싱 불가면 빈 맵 → RewriteService 가 항목별 rewrite 로 폴백.
+     */
+    default Map<String, LlmRewrite> rewriteBatch(String systemPrompt, String userPrompt, int expectedItems) {
+        return Map.of();
+    }
+}
@@ -105,6 +105,60 @@ public class PromptFactory {
         """.formatted(jd, safe(item != null ? item.getAnswer() : ""));
     }
 
+    /* ===========================
+       배치 모드: 여러 항목을 한 번에 (qid 로 매칭)
+       =========================== */
+
+    /** 배치 시스템 프롬프트: 편집 규칙은 system() 과 같고 출력만 items 배열 */
+    public static String systemBatch() {
+        return """
+        당신은 면접 답변을 전문적으로 다듬는 에디터입니다.
+        여러 개의 답변이 qid 와 함께 주어집니다. 각 답변을 아래 규칙으로 독립적으로 다듬고,
+        지정한 JSON 스키마의 '순수 JSON'만 반환하세요. (마크다운/설명/코드펜스/추가 키 금지)
+
+        [출력 스키마]
+        {
+          "items": [
+            { "qid": "string", "rewrite": "string", "jdInsert": ["string"] }
+          ]
+        }
+        - 입력의 모든 qid 에 대해 정확히 1개씩, qid 는 입력 그대로 사용합니다.
+
+        [편집 규칙]
+        1) 원문 그대로 복사 금지: 의미는 유지하되 최소 20% 이상 어휘/표현을 변경합니다.
+        2) STAR 3문장으로 재구성: 상황/과제(S/T) → 행동(A) → 결과(R, 수치/임팩트)
+        3) JD 키워드 최소 1개를 핵심 문장에 자연스럽게 포함합니다.
+        4) 수치/단위 통일: 예) 4.3s → 4.3초, 40% 등. 화살표(→)는 서술형으로 바꿉니다.
+        5) 길이: 항목당 한국어 기준 120~200자.
+        6) 톤: 능동태, 간결·명확. 중복/군더더기 제거.
+        7) 각 항목의 annotations comment/suggest 를 반영하되 과장/허위는 금지합니다.
+
+        반드시 위 스키마의 JSON만 반환하세요.
+        """;
+    }
+
+    /** 배치 user 프롬프트: 공통(체크리스트/JD) 1회 + 항목별 qid/원문/annotations */
+    public static String userBatch(FeedbackResponse ctx, List<FeedbackItem> items, List<String> jdKeywords) {
+        String checklist = (ctx != null && ctx.getChecklist() != null)
+                ? ctx.getChecklist().stream().map(s -> "- " + s).collect(Collectors.joining("\n"))
+                : "- (none)";
+
+        String jd = (jdKeywords == null || jdKeywords.isEmpty())
+                ? "(none)"
+                : String.join(", ", jdKeywords);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("다음 ").append(items.size()).append("개 항목을 위 규칙에 따라 '순수 JSON'만으로 반환하세요.\n\n");
+        sb.append("[체크리스트]\n").append(checklist).append("\n\n");
+        sb.append("[JD 키워드]\n").append(jd).append("\n");
+        for (FeedbackItem item : items) {
+            sb.append("\n### qid: ").append(safe(item.getQid())).append('\n');
+            sb.append("[원문 답변(answer)]\n").append(safe(item.getAnswer())).append('\n');
+            sb.append("[규칙 탐지(annotations) 요약]\n").append(summarizeAnnotations(item)).append('\n');
+        }
+        return sb.toString();
+    }
+
     /* ===========================
        유틸
        =========================== */
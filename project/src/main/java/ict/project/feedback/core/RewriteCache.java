@@ -0,0 +1,236 @@
+package ict.project.feedback.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLM 재작성 결과 캐시 (같은 답변 재제출 시 LLM 호출 생략)
+ * - 키: SHA-256(model + system prompt + user prompt) → 답변/annotations/JD 키워드가 모두 반영됨
+ * - 1차: 힙 LRU (항목 수 상한) + TTL
+ * - 2차: 디스크 JSON (옵션, llm.rewrite.cache.dir 지정 시)
+ * - 같은 키 동시 요청은 진행 중인 호출 1개를 같이 기다림
+ * - 빈 결과(실패/폴백)는 캐시하지 않음
+ */
+@Component
+public class RewriteCache {
+
+    /** 디스크 저장 형식 */
+    record Stored(String rewrite, List<String> jdInsert, long expiresAt) {}
+
+    private record Entry(LlmRewrite value, long expiresAt) {}
+
+    @FunctionalInterface
+    public interface Loader {
+        LlmRewrite load() throws Exception;
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Path diskDir;
+    private final ObjectMapper om = new ObjectMapper();
+
+    /** access-order LRU. 접근은 모두 synchronized(memory) */
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<LlmRewrite>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public RewriteCache(
+            @Value("${llm.rewrite.cache.max-entries:10000}") int maxEntries,
+            @Value("${llm.rewrite.cache.ttl-minutes:1440}") long ttlMinutes,
+            @Value("${llm.rewrite.cache.dir:}") String diskDir
+    ) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(1, ttlMinutes));
+        this.diskDir = (diskDir == null || diskDir.isBlank()) ? null : Paths.get(diskDir).toAbsolutePath().normalize();
+    }
+
+    public static String key(String model, String systemPrompt, String userPrompt) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            // 구분자 포함 → (a+b, c) 와 (a, b+c) 가 같은 키가 되지 않음
+            for (String part : new String[]{model, systemPrompt, userPrompt}) {
+                md.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** 캐시 조회만 (없으면 null) */
+    public LlmRewrite get(String key) {
+        synchronized (memory) {
+            Entry e = memory.get(key);
+            if (e != null) {
+                if (e.expiresAt() > System.currentTimeMillis()) {
+                    memoryHits.increment();
+                    return e.value();
+                }
+                memory.remove(key);
+                expirations.increment();
+            }
+        }
+        Entry fromDisk = readDisk(key);
+        if (fromDisk != null) {
+            diskHits.increment();
+            putMemory(key, fromDisk);
+            return fromDisk.value();
+        }
+        return null;
+    }
+
+    /** 캐시에 있으면 반환, 없으면 loader 실행 (같은 키 동시 호출은 1번만 실행) */
+    public LlmRewrite getOrLoad(String key, Loader loader) throws Exception {
+        LlmRewrite cached = get(key);
+        if (cached != null) return cached;
+
+        CompletableFuture<LlmRewrite> mine = new CompletableFuture<>();
+        CompletableFuture<LlmRewrite> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof Exception ex) throw ex;
+                throw e;
+            }
+        }
+
+        misses.increment();
+        try {
+            LlmRewrite v = frozen(loader.load()); // 같은 키를 기다리던 호출들도 이 값을 공유
+            put(key, v);
+            mine.complete(v);
+            return v;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** 결과 저장 (빈 결과는 무시) */
+    public void put(String key, LlmRewrite value) {
+        if (value == null || value.rewrite() == null || value.rewrite().isBlank()) return;
+        Entry e = new Entry(frozen(value), System.currentTimeMillis() + ttlMillis);
+        putMemory(key, e);
+        writeDisk(key, e);
+    }
+
+    /**
+     * 캐시에 넣는 값은 jdInsert 를 불변 복사본으로
+     * - 히트한 값의 리스트가 요청마다 FeedbackItem 에 그대로 들어가므로, 원본(Jackson ArrayList)을 두면
+     *   어느 한 요청에서 고친 내용이 캐시 항목과 다른 요청 결과까지 바꿔 버림
+     */
+    private static LlmRewrite frozen(LlmRewrite v) {
+        if (v == null) return null;
+        List<String> jd = v.jdInsert() == null ? List.of()
+                : v.jdInsert().stream().filter(Objects::nonNull).toList(); // List.copyOf 와 같되 null 항목은 버림
+        return new LlmRewrite(v.rewrite(), jd);
+    }
+
+    /** 캐시 통계 (관리/모니터링용) */
+    public Map<String, Object> stats() {
+        long mem = memoryHits.sum();
+        long disk = diskHits.sum();
+        long co = coalesced.sum();
+        long miss = misses.sum();
+        long total = mem + disk + co + miss;
+        Map<String, Object> m = new LinkedHashMap<>();
+        synchronized (memory) {
+            m.put("entries", memory.size());
+        }
+        m.put("maxEntries", maxEntries);
+        m.put("ttlMinutes", TimeUnit.MILLISECONDS.toMinutes(ttlMillis));
+        m.put("memoryHits", mem);
+        m.put("diskHits", disk);
+        m.put("coalesced", co);
+        m.put("misses", miss);
+        m.put("evictions", evictions.sum());
+        m.put("expirations", expirations.sum());
+        m.put("hitRatio", total == 0 ? 0.0 : (double) (mem + disk + co) / total);
+        m.put("diskTier", diskDir != null ? diskDir.toString() : "disabled");
+        return m;
+    }
+
+    /* ===================== tiers ===================== */
+
+    private void putMemory(String key, Entry e) {
+        if (maxEntries == 0) return;
+        synchronized (memory) {
+            memory.put(key, e);
+            Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator();
+            while (memory.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private Entry readDisk(String key) {
+        if (diskDir == null) return null;
+        Path file = diskPath(key);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            Stored s = om.readValue(file.toFile(), Stored.class);
+            if (s.expiresAt() <= System.currentTimeMillis()) {
+                Files.deleteIfExists(file);
+                expirations.increment();
+                return null;
+            }
+            return new Entry(frozen(new LlmRewrite(s.rewrite(), s.jdInsert())), s.expiresAt());
+        } catch (IOException e) {
+            System.err.println("[RewriteCache] read failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, Entry e) {
+        if (diskDir == null) return;
+        Path file = diskPath(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "rw-", ".tmp");
+            om.writeValue(tmp.toFile(), new Stored(e.value().rewrite(), e.value().jdInsert(), e.expiresAt()));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            System.err.println("[RewriteCache] write failed: " + ex.getMessage());
+        }
+    }
+
+    /** {dir}/{sha 앞 2자리}/{sha}.json */
+    private Path diskPath(String key) {
+        return diskDir.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+}
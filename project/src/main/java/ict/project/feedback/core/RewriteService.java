@@ -1,18 +1,28 @@
 package ict.project.feedback.core;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import ict.project.feedback.api.dto.FeedbackItem;
 import ict.project.feedback.api.dto.FeedbackResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 @Service
 @RequiredArgsConstructor
@@ -20,14 +30,53 @@ public class RewriteService {
 
     // llm.mode=springai 일 때 SpringAiLlmClient만 빈으로 등록됨
     private final LlmClient llm;
+    private final RewriteCache cache;
 
-    private static final int MAX_PARALLEL = 4;
-    private final ExecutorService pool = Executors.newFixedThreadPool(MAX_PARALLEL);
+    /**
+     * 팬아웃 실행 스레드 수 (요청 간 공유). 실제 LLM 동시 호출 수는 maxConcurrent 로 따로 제한되므로
+     * 동시 요청 수 × perRequestParallelism 정도로 넉넉하게 둔다.
+     */
+    @Value("${llm.rewrite.pool-size:32}")
+    private int poolSize;
+
+    /** 여러 항목을 한 번의 LLM 호출로 재작성 (응답 파싱 실패/누락 항목은 항목별 호출로 폴백) */
+    @Value("${llm.rewrite.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    /** 배치 1회에 넣는 최대 항목 수 (출력 토큰 한도 고려) */
+    @Value("${llm.rewrite.batch.max-items:10}")
+    private int batchMaxItems;
+
+    /** 전체 LLM 동시 호출 상한 (공급사 rate limit 에 맞춤) */
+    @Value("${llm.rewrite.max-concurrent:8}")
+    private int maxConcurrent;
+
+    /** 요청 1건이 동시에 처리하는 항목 수 상한 (한 요청이 풀을 독점하지 않도록) */
+    @Value("${llm.rewrite.per-request-parallelism:4}")
+    private int perRequestParallelism;
+
+    private ThreadPoolExecutor pool;
+    private Semaphore llmPermits;
 
     @PostConstruct
     public void init() {
         System.out.println("[RewriteService] LLM bean = " +
                 (llm == null ? "null" : llm.getClass().getName()));
+
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, poolSize);
+        pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "rewrite-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        llmPermits = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) pool.shutdownNow();
     }
 
     public FeedbackResponse rewrite(FeedbackResponse annotated, List<String> jdKeywords) {
@@ -35,20 +84,136 @@ public class RewriteService {
         System.out.println("[RewriteService] incoming items=" + items.size()
                 + ", jdKeywords=" + (jdKeywords == null ? "null" : jdKeywords));
 
-        List<CompletableFuture<FeedbackItem>> futures = items.stream()
-                .map(item -> CompletableFuture.supplyAsync(
-                        () -> rewriteOne(annotated, item, jdKeywords == null ? List.of() : jdKeywords),
-                        pool))
-                .collect(Collectors.toList());
+        List<String> jd = jdKeywords == null ? List.of() : jdKeywords;
+        FeedbackItem[] rewritten = new FeedbackItem[items.size()];
+
+        // 1) 배치 모드: 여러 항목을 호출 1번으로 처리, 결과가 없거나 no-op 인 항목만 남김
+        List<Integer> remaining = batchEnabled
+                ? rewriteBatched(annotated, items, jd, rewritten)
+                : range(items.size());
 
-        List<FeedbackItem> rewritten = futures.stream()
-                .map(CompletableFuture::join)
-                .toList();
+        // 2) 남은 항목은 항목별 호출 (기존 1차/2차 패스)
+        forEachParallel(remaining.size(), k -> {
+            int i = remaining.get(k);
+            rewritten[i] = rewriteOne(annotated, items.get(i), jd);
+        });
 
-        annotated.setItems(rewritten);
+        annotated.setItems(List.of(rewritten));
         return annotated;
     }
 
+    /**
+     * 배치 재작성. 처리 못 한 항목의 인덱스를 반환.
+     * qid 가 비었거나 중복인 항목은 응답과 매칭할 수 없으므로 배치에서 제외.
+     */
+    private List<Integer> rewriteBatched(FeedbackResponse ctx, List<FeedbackItem> items, List<String> jd,
+                                         FeedbackItem[] rewritten) {
+        List<Integer> eligible = new ArrayList<>();
+        List<Integer> rest = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Set<String> dup = new HashSet<>();
+        for (FeedbackItem it : items) {
+            if (it.getQid() != null && !seen.add(it.getQid())) dup.add(it.getQid());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            FeedbackItem it = items.get(i);
+            boolean needs = it.getAnnotations() != null && !it.getAnnotations().isEmpty();
+            boolean keyed = it.getQid() != null && !it.getQid().isBlank() && !dup.contains(it.getQid());
+            if (needs && keyed) eligible.add(i);
+            else rest.add(i);
+        }
+        if (eligible.size() < 2) return range(items.size()); // 1개면 배치 이득 없음
+
+        // 캐시 키는 단건 1차 패스와 같은 (system, user) 기준 → 배치/단건 어느 쪽 결과든 서로 재사용
+        boolean[] done = new boolean[items.size()];
+        String[] keys = new String[items.size()];
+        String model = llm.modelId();
+        for (Iterator<Integer> it = eligible.iterator(); it.hasNext(); ) {
+            int i = it.next();
+            FeedbackItem item = items.get(i);
+            keys[i] = RewriteCache.key(model, PromptFactory.system(), PromptFactory.user(ctx, item, jd));
+            LlmRewrite hit = cache.get(keys[i]);
+            if (hit != null && !isNoop(item.getAnswer(), hit.rewrite())) {
+                apply(item, hit);
+                rewritten[i] = item;
+                done[i] = true;
+                it.remove();
+            }
+        }
+        if (eligible.size() < 2) {
+            for (int i : eligible) rest.add(i);
+            return rest;
+        }
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        int size = Math.max(1, batchMaxItems);
+        for (int from = 0; from < eligible.size(); from += size) {
+            chunks.add(eligible.subList(from, Math.min(eligible.size(), from + size)));
+        }
+
+        String sys = PromptFactory.systemBatch();
+        forEachParallel(chunks.size(), c -> {
+            List<Integer> chunk = chunks.get(c);
+            List<FeedbackItem> chunkItems = chunk.stream().map(items::get).toList();
+            Map<String, LlmRewrite> results;
+            try {
+                results = callLlmBatch(sys, PromptFactory.userBatch(ctx, chunkItems, jd), chunkItems.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results = Map.of();
+            } catch (Exception e) {
+                System.err.println("[RewriteService] batch call failed: " + e.getMessage());
+                results = Map.of();
+            }
+            for (int i : chunk) {
+                FeedbackItem item = items.get(i);
+                LlmRewrite r = results.get(item.getQid());
+                if (r == null || isNoop(item.getAnswer(), r.rewrite())) continue; // → 항목별 폴백
+                cache.put(keys[i], r);
+                apply(item, r);
+                rewritten[i] = item;
+                done[i] = true;
+            }
+        });
+
+        int fallback = 0;
+        for (int i : eligible) {
+            if (done[i]) continue;
+            rest.add(i);
+            fallback++;
+        }
+        rest.sort(null);
+        System.out.println("[RewriteService] batch: items=" + eligible.size() + ", calls=" + chunks.size()
+                + ", fallback=" + fallback);
+        return rest;
+    }
+
+    /**
+     * count 개 작업을 이 요청 전용 워커(최대 perRequestParallelism 개)가 하나씩 가져가서 실행.
+     * 항목마다 태스크를 만들지 않으므로 다른 요청의 항목들 뒤에 줄 서지 않고, 지연시간은 이 요청의 작업 수에 비례
+     */
+    private void forEachParallel(int count, IntConsumer task) {
+        if (count == 0) return;
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(count, Math.max(1, perRequestParallelism));
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < count) {
+                    task.accept(i);
+                }
+            }, pool));
+        }
+        futures.forEach(CompletableFuture::join);
+    }
+
+    private static List<Integer> range(int n) {
+        List<Integer> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) out.add(i);
+        return out;
+    }
+
     private FeedbackItem rewriteOne(FeedbackResponse ctx, FeedbackItem item, List<String> jdKeywords) {
         boolean needs = item.getAnnotations() != null && !item.getAnnotations().isEmpty();
         System.out.println("[rewriteOne] qid=" + item.getQid()
@@ -69,7 +234,7 @@ public class RewriteService {
 
         try {
             System.out.println("[rewriteOne] calling LLM (pass1)...");
-            LlmRewrite out = llm.rewrite(sys, usr);
+            LlmRewrite out = cachedLlm(sys, usr);
 
             String pass1Rewrite = safe(out == null ? null : out.rewrite());
             List<String> pass1Jd = out == null || out.jdInsert() == null ? List.of() : out.jdInsert();
@@ -79,7 +244,7 @@ public class RewriteService {
                 System.out.println("[rewriteOne] no-op detected → calling LLM (pass2, strict)...");
                 String sys2 = PromptFactory.systemStrict();
                 String usr2 = PromptFactory.userStrict(ctx, item, jdKeywords);
-                LlmRewrite out2 = llm.rewrite(sys2, usr2);
+                LlmRewrite out2 = cachedLlm(sys2, usr2);
 
                 String pass2Rewrite = safe(out2 == null ? null : out2.rewrite());
                 List<String> pass2Jd = out2 == null || out2.jdInsert() == null ? List.of() : out2.jdInsert();
@@ -96,6 +261,11 @@ public class RewriteService {
                 item.setRewrite(finalRewrite);
                 item.setJdInsert(pass1Jd);
             }
+        } catch (InterruptedException e) {
+            // 종료(shutdownNow) 중 → 인터럽트 상태를 살려서 워커가 멈추도록
+            Thread.currentThread().interrupt();
+            item.setRewrite(item.getAnswer());
+            item.setJdInsert(Collections.emptyList());
         } catch (Exception e) {
             System.err.println("[rewriteOne] LLM call failed for qid=" + item.getQid());
             e.printStackTrace();
@@ -105,7 +275,36 @@ public class RewriteService {
         return item;
     }
 
+    /** 캐시 → (미스면) 전역 동시 호출 상한 안에서 LLM 호출 */
+    private LlmRewrite cachedLlm(String sys, String usr) throws Exception {
+        return cache.getOrLoad(RewriteCache.key(llm.modelId(), sys, usr), () -> callLlm(sys, usr));
+    }
+
+    /** 전역 동시 호출 상한 안에서 LLM 호출 */
+    private LlmRewrite callLlm(String sys, String usr) throws InterruptedException {
+        llmPermits.acquire();
+        try {
+            return llm.rewrite(sys, usr);
+        } finally {
+            llmPermits.release();
+        }
+    }
+
+    private Map<String, LlmRewrite> callLlmBatch(String sys, String usr, int expectedItems) throws InterruptedException {
+        llmPermits.acquire();
+        try {
+            return llm.rewriteBatch(sys, usr, expectedItems);
+        } finally {
+            llmPermits.release();
+        }
+    }
+
     // ===== 유틸 =====
+    private static void apply(FeedbackItem item, LlmRewrite r) {
+        item.setRewrite(r.rewrite());
+        item.setJdInsert(r.jdInsert() == null ? List.of() : r.jdInsert());
+    }
+
     private static boolean isNoop(String original, String rewritten) {
         if (rewritten == null || rewritten.isBlank()) return true;
         String a = safe(original).replaceAll("\\s+","").toLowerCase();
@@ -2,19 +2,31 @@ package ict.project.feedback.core;
 
 import ict.project.feedback.api.dto.FeedbackItem;
 import ict.project.feedback.api.dto.FeedbackResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 답변 규칙 탐지. 규칙 자체는 RuleRegistry(feedback-rules.json) 에서 관리하고
+ * 여기서는 현재 규칙셋 스냅샷으로 한 번에 스캔 + JD 키워드 검사 + 겹침 병합만 담당.
+ */
 @Component
+@RequiredArgsConstructor
 public class RuleDetector {
 
     public record SpanHit(int start, int end, String text, String category) {}
 
-    private static final Pattern VAGUE  = Pattern.compile("했다|좋았다|같다|도움|개선");
-    private static final Pattern METRIC = Pattern.compile("\\d+(?:\\.\\d+)?\\s*(%|ms|초|점|LCP|CLS|CTR|전환율)", Pattern.CASE_INSENSITIVE);
+    /** findJdKeywords 결과의 category. 문제 항목이 아니므로 detect()/annotate() 결과에는 넣지 않음 */
+    public static final String JD_MATCH = "jd_match";
+
+    private final RuleRegistry rules;
+
+    /** JD 키워드 집합별 컴파일된 매처 (요청마다 같은 JD 가 반복되므로 재사용) */
+    private static final int MATCHER_CACHE_MAX = 256;
+    private static final KeywordMatcher NO_KEYWORDS = KeywordMatcher.compile(List.of());
+    private final Map<List<String>, KeywordMatcher> matchers = new ConcurrentHashMap<>();
 
     public FeedbackResponse annotate(FeedbackResponse response, List<String> jdKeywords) {
         if (response == null || response.getItems() == null) return response;
@@ -33,28 +45,45 @@ public class RuleDetector {
     }
 
     public List<SpanHit> detect(String answer, List<String> jdKeywords) {
-        List<SpanHit> hits = new ArrayList<>();
-        if (answer == null || answer.isBlank()) return hits;
+        if (answer == null || answer.isBlank()) return new ArrayList<>();
 
-        Matcher mv = VAGUE.matcher(answer);
-        if (mv.find()) {
-            hits.add(new SpanHit(mv.start(), mv.end(), answer.substring(mv.start(), mv.end()), "vague"));
-        }
+        // 요청 도중 규칙이 교체돼도 이 답변은 같은 스냅샷으로 처리
+        RuleSet ruleSet = rules.current();
+        List<SpanHit> hits = ruleSet.scan(answer);
 
-        boolean hasMetric = METRIC.matcher(answer).find();
-        if (!hasMetric) {
-            int end = Math.min(Math.max(16, answer.length()/3), answer.length());
-            hits.add(new SpanHit(0, end, answer.substring(0, end), "no_metric"));
+        // 여기서는 문제(hit)만: 키워드가 하나도 없을 때 no_jd_match. 반영된 위치가 필요하면 findJdKeywords
+        if (ruleSet.hasJdRule() && !matcher(jdKeywords).containsAny(answer)) {
+            hits.add(ruleSet.jdMissing(answer));
         }
 
-        boolean jdHit = jdKeywords != null && jdKeywords.stream()
-                .anyMatch(k -> answer.toLowerCase().contains(nz(k).toLowerCase()));
-        if (!jdHit) {
-            int end = Math.min(12, answer.length());
-            hits.add(new SpanHit(0, end, answer.substring(0, end), "no_jd_match"));
+        return mergeOverlaps(hits, answer);
+    }
+
+    /** 답변 안의 JD 키워드 출현 위치 전부 (category = JD_MATCH, 시작 위치 순) */
+    public List<SpanHit> findJdKeywords(String answer, List<String> jdKeywords) {
+        List<SpanHit> hits = new ArrayList<>();
+        if (answer == null || answer.isEmpty()) return hits;
+        for (KeywordMatcher.Match m : matcher(jdKeywords).findAll(answer)) {
+            hits.add(new SpanHit(m.start(), m.end(), answer.substring(m.start(), m.end()), JD_MATCH));
         }
+        hits.sort(Comparator.comparingInt(SpanHit::start).thenComparingInt(SpanHit::end));
+        return hits;
+    }
 
-        return mergeOverlaps(hits, answer);
+    /** 키워드 집합(순서/대소문자/공백 무시)으로 캐시된 매처 */
+    KeywordMatcher matcher(List<String> jdKeywords) {
+        if (jdKeywords == null || jdKeywords.isEmpty()) return NO_KEYWORDS;
+        List<String> key = jdKeywords.stream()
+                .filter(Objects::nonNull)
+                .map(k -> k.trim().toLowerCase(Locale.ROOT))
+                .filter(k -> !k.isEmpty())
+                .distinct()
+                .sorted()
+                .toList();
+        KeywordMatcher m = matchers.get(key);
+        if (m != null) return m;
+        if (matchers.size() >= MATCHER_CACHE_MAX) matchers.clear(); // 단순 상한 (JD 종류는 많지 않음)
+        return matchers.computeIfAbsent(key, KeywordMatcher::compile);
     }
 
     private List<SpanHit> mergeOverlaps(List<SpanHit> list, String answer) {
@@ -86,21 +115,11 @@ public class RuleDetector {
         var ann = new ict.project.feedback.api.dto.Annotation();
         ann.setCategory(h.category());
 
-        switch (h.category()) {
-            case "no_metric" -> {
-                ann.setComment("전후 수치를 넣어주세요");
-                ann.setSuggest("예) LCP 4.3초→2.6초, 오류율 1.2%→0.6%");
-            }
-            case "vague" -> {
-                ann.setComment("방법을 더 구체적으로 써주세요");
-                ann.setSuggest("예) lazy-loading, code splitting, 캐시 전략 등");
-            }
-            case "no_jd_match" -> {
-                ann.setComment("JD 키워드를 1개 이상 자연스럽게 포함하세요");
-                ann.setSuggest("예) Spring Boot, Kafka, REST API, Docker 중 1개 이상");
-            }
-            default -> ann.setComment("개선이 필요합니다");
-        }
+        // 문구는 규칙 정의(comment/suggest)에서, 없으면 기본 문구
+        RuleSet ruleSet = rules.current();
+        String comment = ruleSet.comment(h.category());
+        ann.setComment(comment != null ? comment : "개선이 필요합니다");
+        ann.setSuggest(ruleSet.suggest(h.category()));
 
         // ★ 여기서도 완전수식으로 Span 생성 (내부클래스 존재 가정)
         var span = new ict.project.feedback.api.dto.Annotation.Span();
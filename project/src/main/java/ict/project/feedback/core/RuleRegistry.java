@@ -0,0 +1,143 @@
+package ict.project.feedback.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 피드백 규칙 레지스트리
+ * - feedback.rules.location (기본 classpath:feedback-rules.json) 에서 규칙 정의를 읽어 RuleSet 으로 컴파일
+ * - 읽기 측(RuleDetector)은 current() 로 스냅샷만 가져감 → 락 없음
+ * - 파일 경로(file:...)면 수정 시각을 주기적으로 확인해서 바뀌면 다시 컴파일 후 통째로 교체
+ * - 컴파일 실패 시 기존 규칙셋 유지 (처음부터 실패하면 내장 기본 규칙 사용)
+ */
+@Component
+public class RuleRegistry {
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final long reloadIntervalSec;
+    private final ObjectMapper om = new ObjectMapper();
+
+    private final AtomicReference<RuleSet> current = new AtomicReference<>(defaults());
+    private volatile long loadedModified = -1;
+    private volatile long loadedAt = 0;
+    private volatile String lastError;
+    private ScheduledExecutorService watcher;
+
+    public RuleRegistry(
+            ResourceLoader resourceLoader,
+            @Value("${feedback.rules.location:classpath:feedback-rules.json}") String location,
+            @Value("${feedback.rules.reload-interval-sec:10}") long reloadIntervalSec
+    ) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        this.reloadIntervalSec = reloadIntervalSec;
+    }
+
+    /** 스프링 밖(벤치마크 등)에서 쓰는 용도: 위치만 주면 바로 로드 */
+    public static RuleRegistry load(String location) {
+        RuleRegistry r = new RuleRegistry(new DefaultResourceLoader(), location, 0);
+        r.reload();
+        return r;
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+        if (reloadIntervalSec > 0 && isFile()) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "feedback-rules-watch");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, reloadIntervalSec, reloadIntervalSec, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watcher != null) watcher.shutdownNow();
+    }
+
+    public RuleSet current() {
+        return current.get();
+    }
+
+    /** 다시 읽어서 교체. 결과 요약 반환 (실패 시 error 포함, 기존 규칙 유지) */
+    public synchronized Map<String, Object> reload() {
+        Resource resource = resourceLoader.getResource(location);
+        try {
+            long modified = isFile() ? resource.lastModified() : -1;
+            RuleSet.Document doc;
+            try (InputStream in = resource.getInputStream()) {
+                doc = om.readValue(in, RuleSet.Document.class);
+            }
+            RuleSet compiled = RuleSet.compile(doc.rules());
+            current.set(compiled);
+            loadedModified = modified;
+            loadedAt = System.currentTimeMillis();
+            lastError = null;
+            System.out.println("[RuleRegistry] loaded " + compiled.ruleIds().size() + " rules from " + location);
+        } catch (IOException | IllegalArgumentException e) {
+            lastError = e.getMessage();
+            System.err.println("[RuleRegistry] load failed (" + location + "), keeping current rules: " + e.getMessage());
+        }
+        return summary();
+    }
+
+    public Map<String, Object> summary() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("location", location);
+        m.put("rules", current.get().ruleIds());
+        m.put("loadedAt", loadedAt);
+        m.put("watching", watcher != null);
+        if (lastError != null) m.put("error", lastError);
+        return m;
+    }
+
+    private void reloadIfModified() {
+        try {
+            long modified = resourceLoader.getResource(location).lastModified();
+            if (modified != loadedModified) reload();
+        } catch (IOException e) {
+            // 파일이 잠깐 없을 수 있음 (에디터 저장 중 등) → 다음 주기에 재시도
+        } catch (RuntimeException e) {
+            System.err.println("[RuleRegistry] watch failed: " + e.getMessage());
+        }
+    }
+
+    private boolean isFile() {
+        return resourceLoader.getResource(location).isFile();
+    }
+
+    /** 설정 파일을 못 읽을 때 쓰는 내장 기본 규칙 (기존 하드코딩 규칙과 동일) */
+    static RuleSet defaults() {
+        return RuleSet.compile(List.of(
+                new RuleSet.Definition("vague", "regex", "vague", true,
+                        "했다|좋았다|같다|도움|개선", false, null, false, null, null, null, null, null,
+                        "방법을 더 구체적으로 써주세요", "예) lazy-loading, code splitting, 캐시 전략 등"),
+                new RuleSet.Definition("metric", "regex", "no_metric", true,
+                        "\\d+(?:\\.\\d+)?\\s*(%|ms|초|점|LCP|CLS|CTR|전환율)", true, null, true, 16, 3, null, null, null,
+                        "전후 수치를 넣어주세요", "예) LCP 4.3초→2.6초, 오류율 1.2%→0.6%"),
+                new RuleSet.Definition("jd", "jd", "no_jd_match", true,
+                        null, null, null, true, 12, null, null, null, null,
+                        "JD 키워드를 1개 이상 자연스럽게 포함하세요", "예) Spring Boot, Kafka, REST API, Docker 중 1개 이상")
+        ));
+    }
+}
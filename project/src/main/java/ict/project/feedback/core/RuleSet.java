@@ -0,0 +1,291 @@
+package ict.project.feedback.core;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import ict.project.feedback.core.RuleDetector.SpanHit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 컴파일된 규칙 묶음 (불변 → RuleRegistry 가 통째로 교체)
+ * - regex 규칙: 전부 하나의 alternation 패턴 (?<r0>..)|(?<r1>..)|... 으로 합쳐서 본문 1회 스캔
+ * - keyword 규칙: 전부 하나의 KeywordMatcher(Aho-Corasick) 로 합쳐서 본문 1회 스캔
+ * - absent=true 규칙: 한 번도 안 걸리면 답변 앞부분(head) 구간을 표시 (no_metric 등)
+ *   regex 인 경우 합친 패턴에서 빼고 규칙별 Pattern.find() 로 검사 (앞 규칙이 같은 위치를 먹어서 미검출로 오판하지 않게)
+ * - length 규칙: 글자 수/문장 수가 범위를 벗어나면 답변 전체를 표시
+ * - jd 규칙: 요청마다 달라지는 JD 키워드 미포함 표시 (매칭 자체는 RuleDetector 가 수행)
+ * regex 규칙끼리 같은 위치에서 겹치면 파일에 먼저 적힌 규칙이 이김 (alternation 특성).
+ * 합쳐지므로 규칙 패턴 안에서 번호 역참조(\1)는 쓰지 않는다.
+ */
+public final class RuleSet {
+
+    /** feedback-rules.json 의 rules[] 한 항목 */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Definition(
+            String id,
+            String type,          // regex | keyword | length | jd
+            String category,
+            Boolean enabled,
+            String pattern,       // regex
+            Boolean ignoreCase,   // regex (keyword 는 항상 대소문자 무시)
+            List<String> keywords,// keyword
+            Boolean absent,       // regex/keyword: 미검출 시 표시
+            Integer headMin,      // absent/jd 표시 구간: max(headMin, 길이/headDivisor)
+            Integer headDivisor,
+            String unit,          // length: chars | sentences
+            Integer min,
+            Integer max,
+            String comment,
+            String suggest
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Document(List<Definition> rules) {}
+
+    private record Compiled(String id, String category, boolean absent, int headMin, int headDivisor) {}
+
+    private record LengthRule(String id, String category, boolean sentences, int min, int max) {}
+
+    private final List<Compiled> regexRules;
+    private final Pattern combined;
+    private final String[] groupNames;
+
+    /** absent=true regex 규칙 (존재 여부만 보면 되므로 첫 매칭에서 멈춤) */
+    private final List<Compiled> absentRegexRules;
+    private final List<Pattern> absentPatterns;
+
+    private final List<Compiled> keywordRules;
+    private final KeywordMatcher keywordMatcher;
+    /** keywordMatcher 의 키워드 인덱스 → 그 키워드를 가진 규칙 인덱스들 */
+    private final int[][] keywordOwners;
+
+    private final List<LengthRule> lengthRules;
+    private final Compiled jdRule;
+
+    private final Map<String, String> comments;
+    private final Map<String, String> suggests;
+    private final List<String> ruleIds;
+
+    private RuleSet(List<Compiled> regexRules, Pattern combined,
+                    List<Compiled> absentRegexRules, List<Pattern> absentPatterns, List<Compiled> keywordRules,
+                    KeywordMatcher keywordMatcher, int[][] keywordOwners, List<LengthRule> lengthRules,
+                    Compiled jdRule, Map<String, String> comments, Map<String, String> suggests, List<String> ruleIds) {
+        this.regexRules = regexRules;
+        this.combined = combined;
+        this.groupNames = new String[regexRules.size()];
+        for (int i = 0; i < groupNames.length; i++) groupNames[i] = "r" + i;
+        this.absentRegexRules = absentRegexRules;
+        this.absentPatterns = absentPatterns;
+        this.keywordRules = keywordRules;
+        this.keywordMatcher = keywordMatcher;
+        this.keywordOwners = keywordOwners;
+        this.lengthRules = lengthRules;
+        this.jdRule = jdRule;
+        this.comments = comments;
+        this.suggests = suggests;
+        this.ruleIds = ruleIds;
+    }
+
+    /** 정의 목록 → 컴파일 (잘못된 규칙이 있으면 IllegalArgumentException, 기존 규칙셋은 그대로 유지됨) */
+    public static RuleSet compile(List<Definition> definitions) {
+        List<Compiled> regexRules = new ArrayList<>();
+        StringBuilder alternation = new StringBuilder();
+        List<Compiled> absentRegexRules = new ArrayList<>();
+        List<Pattern> absentPatterns = new ArrayList<>();
+        List<Compiled> keywordRules = new ArrayList<>();
+        List<List<String>> keywordLists = new ArrayList<>();
+        List<LengthRule> lengthRules = new ArrayList<>();
+        Compiled jdRule = null;
+        Map<String, String> comments = new HashMap<>();
+        Map<String, String> suggests = new HashMap<>();
+        List<String> ruleIds = new ArrayList<>();
+
+        for (Definition d : definitions == null ? List.<Definition>of() : definitions) {
+            if (d == null || Boolean.FALSE.equals(d.enabled())) continue;
+            String id = d.id() == null ? "rule-" + ruleIds.size() : d.id();
+            if (d.category() == null || d.category().isBlank()) {
+                throw new IllegalArgumentException("rule " + id + ": category 누락");
+            }
+            String type = d.type() == null ? "" : d.type().toLowerCase(Locale.ROOT);
+            Compiled c = new Compiled(id, d.category(), Boolean.TRUE.equals(d.absent()),
+                    d.headMin() == null ? 0 : d.headMin(), d.headDivisor() == null ? 0 : d.headDivisor());
+
+            switch (type) {
+                case "regex" -> {
+                    if (d.pattern() == null || d.pattern().isEmpty()) {
+                        throw new IllegalArgumentException("rule " + id + ": pattern 누락");
+                    }
+                    Pattern own;
+                    try {
+                        // 규칙 단위로 먼저 검증 → 오류 위치를 규칙 id 로 알려줌
+                        own = Pattern.compile(d.pattern(), Boolean.TRUE.equals(d.ignoreCase()) ? Pattern.CASE_INSENSITIVE : 0);
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("rule " + id + ": " + e.getDescription(), e);
+                    }
+                    if (c.absent()) {
+                        absentRegexRules.add(c);
+                        absentPatterns.add(own);
+                    } else {
+                        if (!alternation.isEmpty()) alternation.append('|');
+                        alternation.append("(?<r").append(regexRules.size()).append('>')
+                                .append(Boolean.TRUE.equals(d.ignoreCase()) ? "(?i:" : "(?:")
+                                .append(d.pattern()).append("))");
+                        regexRules.add(c);
+                    }
+                }
+                case "keyword" -> {
+                    if (d.keywords() == null || d.keywords().isEmpty()) {
+                        throw new IllegalArgumentException("rule " + id + ": keywords 누락");
+                    }
+                    keywordRules.add(c);
+                    keywordLists.add(d.keywords());
+                }
+                case "length" -> {
+                    boolean sentences = "sentences".equalsIgnoreCase(d.unit());
+                    lengthRules.add(new LengthRule(id, d.category(), sentences,
+                            d.min() == null ? 0 : d.min(), d.max() == null ? Integer.MAX_VALUE : d.max()));
+                }
+                case "jd" -> jdRule = c;
+                default -> throw new IllegalArgumentException("rule " + id + ": 알 수 없는 type " + d.type());
+            }
+            if (d.comment() != null) comments.putIfAbsent(d.category(), d.comment());
+            if (d.suggest() != null) suggests.putIfAbsent(d.category(), d.suggest());
+            ruleIds.add(id);
+        }
+
+        Pattern combined = regexRules.isEmpty() ? null : Pattern.compile(alternation.toString());
+
+        // 키워드 규칙 전부를 하나의 매처로 (같은 키워드를 여러 규칙이 가질 수 있음)
+        Map<String, List<Integer>> owners = new LinkedHashMap<>();
+        for (int r = 0; r < keywordLists.size(); r++) {
+            for (String k : keywordLists.get(r)) {
+                if (k == null || k.isBlank()) continue;
+                List<Integer> list = owners.computeIfAbsent(k.trim().toLowerCase(Locale.ROOT), x -> new ArrayList<>());
+                if (!list.contains(r)) list.add(r);
+            }
+        }
+        KeywordMatcher matcher = KeywordMatcher.compile(owners.keySet());
+        int[][] keywordOwners = new int[matcher.size()][];
+        for (int i = 0; i < matcher.size(); i++) {
+            keywordOwners[i] = owners.get(matcher.keyword(i)).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        return new RuleSet(List.copyOf(regexRules), combined, List.copyOf(absentRegexRules), List.copyOf(absentPatterns),
+                List.copyOf(keywordRules), matcher, keywordOwners,
+                List.copyOf(lengthRules), jdRule, Map.copyOf(comments), Map.copyOf(suggests), List.copyOf(ruleIds));
+    }
+
+    /**
+     * 정적 규칙(regex/keyword/length) 전체를 한 번에 적용. 겹침 병합은 호출 측(RuleDetector) 에서.
+     * jd 규칙은 요청별 키워드가 필요하므로 여기서는 다루지 않음 → jdRule()/head() 사용.
+     */
+    List<SpanHit> scan(String answer) {
+        List<SpanHit> hits = new ArrayList<>();
+
+        // 1) regex: 합친 패턴 1회 스캔, 어느 그룹이 잡혔는지로 규칙 판별
+        if (combined != null) {
+            Matcher m = combined.matcher(answer);
+            while (m.find()) {
+                if (m.start() == m.end()) continue;
+                for (int r = 0; r < groupNames.length; r++) {
+                    if (m.start(groupNames[r]) < 0) continue;
+                    hits.add(new SpanHit(m.start(), m.end(), m.group(), regexRules.get(r).category()));
+                    break;
+                }
+            }
+        }
+
+        // 2) keyword: 전체 키워드 1회 스캔
+        boolean[] keywordSeen = new boolean[keywordRules.size()];
+        if (!keywordMatcher.isEmpty()) {
+            for (KeywordMatcher.Match km : keywordMatcher.findAll(answer)) {
+                for (int r : keywordOwners[km.keyword()]) {
+                    keywordSeen[r] = true;
+                    Compiled c = keywordRules.get(r);
+                    if (!c.absent()) {
+                        hits.add(new SpanHit(km.start(), km.end(), answer.substring(km.start(), km.end()), c.category()));
+                    }
+                }
+            }
+        }
+
+        // 3) absent 규칙: 한 번도 안 걸렸으면 앞부분 표시
+        for (int r = 0; r < absentPatterns.size(); r++) {
+            if (!absentPatterns.get(r).matcher(answer).find()) hits.add(head(answer, absentRegexRules.get(r)));
+        }
+        for (int r = 0; r < keywordSeen.length; r++) {
+            if (keywordRules.get(r).absent() && !keywordSeen[r]) hits.add(head(answer, keywordRules.get(r)));
+        }
+
+        // 4) length/structure
+        if (!lengthRules.isEmpty()) {
+            int chars = answer.strip().length();
+            int sentences = -1;
+            for (LengthRule lr : lengthRules) {
+                int v;
+                if (lr.sentences()) {
+                    if (sentences < 0) sentences = countSentences(answer);
+                    v = sentences;
+                } else {
+                    v = chars;
+                }
+                if (v < lr.min() || v > lr.max()) hits.add(new SpanHit(0, answer.length(), answer, lr.category()));
+            }
+        }
+        return hits;
+    }
+
+    /** JD 미포함 규칙 (없으면 JD 검사 안 함) */
+    boolean hasJdRule() {
+        return jdRule != null;
+    }
+
+    SpanHit jdMissing(String answer) {
+        return head(answer, jdRule);
+    }
+
+    public String comment(String category) {
+        return comments.get(category);
+    }
+
+    public String suggest(String category) {
+        return suggests.get(category);
+    }
+
+    public List<String> ruleIds() {
+        return ruleIds;
+    }
+
+    /** 표시 구간: [0, min(max(headMin, 길이/headDivisor), 길이)) */
+    private static SpanHit head(String answer, Compiled c) {
+        int byRatio = c.headDivisor() > 0 ? answer.length() / c.headDivisor() : 0;
+        int end = Math.min(Math.max(c.headMin(), byRatio), answer.length());
+        return new SpanHit(0, end, answer.substring(0, end), c.category());
+    }
+
+    /** 문장 수: 종결부호(. ! ? 。) 또는 줄바꿈으로 끝나는 비어 있지 않은 구간 개수 */
+    private static int countSentences(String s) {
+        int count = 0;
+        boolean inSentence = false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            // 소수점(4.3초)은 문장 끝이 아님
+            boolean dot = ch == '.' && !(i + 1 < s.length() && Character.isDigit(s.charAt(i + 1)));
+            boolean end = dot || ch == '!' || ch == '?' || ch == '。' || ch == '\n';
+            if (end) {
+                if (inSentence) count++;
+                inSentence = false;
+            } else if (!Character.isWhitespace(ch)) {
+                inSentence = true;
+            }
+        }
+        return inSentence ? count + 1 : count;
+    }
+}
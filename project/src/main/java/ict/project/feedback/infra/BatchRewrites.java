@@ -0,0 +1,32 @@
+package ict.project.feedback.infra;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import ict.project.feedback.core.LlmRewrite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** 배치 재작성 응답 {"items":[{"qid","rewrite","jdInsert"}]} 파싱 (OpenAiLikeClient / SpringAiLlmClient 공용) */
+final class BatchRewrites {
+
+    private BatchRewrites() {}
+
+    static Map<String, LlmRewrite> parse(JsonNode root) {
+        if (root == null || !root.path("items").isArray()) return Map.of();
+
+        Map<String, LlmRewrite> out = new HashMap<>();
+        for (JsonNode it : root.path("items")) {
+            String qid = it.path("qid").asText("");
+            if (qid.isBlank()) continue;
+
+            List<String> jdInsert = new ArrayList<>();
+            for (JsonNode k : it.path("jdInsert")) {
+                if (k.isTextual() && !k.asText().isBlank()) jdInsert.add(k.asText());
+            }
+            out.put(qid, new LlmRewrite(it.path("rewrite").asText(""), jdInsert));
+        }
+        return out;
+    }
+}
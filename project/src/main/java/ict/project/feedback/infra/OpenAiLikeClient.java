@@ -1,9 +1,12 @@
 package ict.project.feedback.infra;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ict.project.feedback.core.LlmClient;
 import ict.project.feedback.core.LlmRewrite;
+import ict.project.resume.config.PooledHttpConnectors;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
@@ -13,6 +16,7 @@ import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @ConditionalOnProperty(prefix = "llm", name = "mode", havingValue = "openai")
@@ -36,46 +40,58 @@ public class OpenAiLikeClient implements LlmClient {
     @Value("${llm.timeoutMs:6000}")
     private long timeoutMs;
 
+    /** 배치 모드: 항목당 max_tokens 에 곱하되 이 값을 넘지 않음 */
+    @Value("${llm.batch.maxTokens:4000}")
+    private int batchMaxTokens;
+
+    @Value("${llm.batch.timeoutMs:30000}")
+    private long batchTimeoutMs;
+
     private final ObjectMapper om = new ObjectMapper();
 
+    private final WebClient.Builder builder;
+    private final PooledHttpConnectors connectors;
+
+    /** 요청마다 만들지 않고 한 번만 생성 (커넥션 풀/코덱 재사용) */
+    private WebClient client;
+
+    public OpenAiLikeClient(WebClient.Builder builder, PooledHttpConnectors connectors) {
+        this.builder = builder;
+        this.connectors = connectors;
+    }
+
+    @PostConstruct
+    void init() {
+        client = builder
+                .baseUrl(normalizeEndpoint(endpoint)) // base든 full이든 OK
+                .clientConnector(connectors.connector("llm", Duration.ofMillis(Math.max(timeoutMs, batchTimeoutMs)), true))
+                .defaultHeaders(h -> h.setBearerAuth(apiKey))
+                .build();
+    }
+
+    /** chat/completions 요청 본문 (Jackson 직렬화 → 이스케이프 누락 없음) */
+    record ChatRequest(
+            String model,
+            List<Message> messages,
+            @JsonProperty("response_format") Map<String, String> responseFormat,
+            double temperature,
+            @JsonProperty("max_tokens") int maxTokens
+    ) {}
+
+    record Message(String role, String content) {}
+
     @Override
-    public LlmRewrite rewrite(String systemPrompt, String userPrompt) {
-        String url = normalizeEndpoint(endpoint); // base든 full이든 OK
-
-        String payload = """
-        {
-          "model": %s,
-          "messages": [
-            {"role":"system","content":%s},
-            {"role":"user","content":%s}
-          ],
-          "response_format": {"type":"json_object"},
-          "temperature": %s,
-          "max_tokens": %s
-        }
-        """.formatted(q(model), q(systemPrompt), q(userPrompt), temperature, maxTokens);
+    public String modelId() {
+        return model;
+    }
 
+    @Override
+    public LlmRewrite rewrite(String systemPrompt, String userPrompt) {
         try {
-            String resp = WebClient.create(url)
-                    .post()
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .headers(h -> h.setBearerAuth(apiKey))
-                    .bodyValue(payload)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofMillis(timeoutMs))
-                    .retryWhen(Retry.max(1))
-                    .block();
-
-            if (resp == null || resp.isBlank()) {
+            JsonNode node = chat(systemPrompt, userPrompt, maxTokens, timeoutMs);
+            if (node == null) {
                 return new LlmRewrite("", List.of());
             }
-
-            JsonNode root = om.readTree(resp);
-            String content = root.at("/choices/0/message/content").asText("{}");
-
-            // 모델이 JSON만 반환하도록 시킨 상태라 바로 파싱 시도
-            JsonNode node = om.readTree(content);
             String rewrite = node.path("rewrite").asText("");
             List<String> jdInsert = om.convertValue(
                     node.path("jdInsert"),
@@ -92,6 +108,45 @@ public class OpenAiLikeClient implements LlmClient {
         }
     }
 
+    /** 여러 항목을 한 번에: {"items":[{qid, rewrite, jdInsert}]} → qid별 결과 (실패 시 빈 맵 → 호출 측 단건 폴백) */
+    @Override
+    public Map<String, LlmRewrite> rewriteBatch(String systemPrompt, String userPrompt, int expectedItems) {
+        try {
+            int tokens = Math.min(batchMaxTokens, maxTokens * Math.max(1, expectedItems));
+            return BatchRewrites.parse(chat(systemPrompt, userPrompt, tokens, batchTimeoutMs));
+        } catch (Exception e) {
+            return Map.of();
+        }
+    }
+
+    /** chat/completions 호출 후 message.content 를 JSON 으로 파싱해서 반환 */
+    private JsonNode chat(String systemPrompt, String userPrompt, int maxTokens, long timeoutMs) throws Exception {
+        ChatRequest payload = new ChatRequest(
+                model,
+                List.of(new Message("system", systemPrompt), new Message("user", userPrompt)),
+                Map.of("type", "json_object"),
+                temperature,
+                maxTokens
+        );
+
+        // 응답은 String 으로 모으지 않고 JsonNode 로 바로 디코딩
+        JsonNode root = client.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .retryWhen(Retry.max(1))
+                .block();
+
+        if (root == null) return null;
+
+        String content = root.at("/choices/0/message/content").asText("{}");
+
+        // 모델이 JSON만 반환하도록 시킨 상태라 바로 파싱 시도
+        return om.readTree(content);
+    }
+
     /** endpoint가 base URL이면 /chat/completions 붙여줌 */
     private static String normalizeEndpoint(String ep) {
         if (ep == null || ep.isBlank()) return "https://api.openai.com/v1/chat/completions";
@@ -102,8 +157,4 @@ public class OpenAiLikeClient implements LlmClient {
         // 이미 /v1/xxx 다른 경로면 그대로 사용한다고 가정
         return trimmed;
     }
-
-    private static String q(String s) {
-        return "\"" + (s == null ? "" : s.replace("\"", "\\\"")) + "\"";
-    }
 }
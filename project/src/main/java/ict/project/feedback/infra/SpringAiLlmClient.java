@@ -11,6 +11,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientResponseException;
 
 import java.util.List;
+import java.util.Map;
 
 @Component
 @ConditionalOnProperty(prefix = "llm", name = "mode", havingValue = "springai")
@@ -23,6 +24,11 @@ public class SpringAiLlmClient implements LlmClient {
         this.chat = builder.build();
     }
 
+    @Override
+    public String modelId() {
+        return "gpt-4o-mini";
+    }
+
     @Override
     public LlmRewrite rewrite(String systemPrompt, String userPrompt) {
         try {
@@ -64,6 +70,28 @@ public class SpringAiLlmClient implements LlmClient {
         }
     }
 
+    @Override
+    public Map<String, LlmRewrite> rewriteBatch(String systemPrompt, String userPrompt, int expectedItems) {
+        try {
+            String raw = chat
+                    .prompt()
+                    .options(OpenAiChatOptions.builder()
+                            .model("gpt-4o-mini")
+                            .temperature(0.2)
+                            .responseFormat(null)
+                            .build())
+                    .system(systemPrompt)
+                    .user(userPrompt)
+                    .call()
+                    .content();
+            return BatchRewrites.parse(om.readTree(stripFences(raw)));
+        } catch (Exception e) {
+            // 배치 실패 → 빈 결과 (RewriteService 가 항목별 호출로 폴백)
+            System.err.println("[SpringAiLlmClient] batch rewrite failed: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
     /** ```json ... ``` / 설명문 제거하고 JSON 본문만 추출 */
     private String stripFences(String s) {
         if (s == null) return "";
@@ -1,35 +0,0 @@
-//package your.pkg.config;
-//
-//import io.netty.channel.ChannelOption;
-//import io.netty.handler.timeout.ReadTimeoutHandler;
-//import io.netty.handler.timeout.WriteTimeoutHandler;
-//import org.springframework.beans.factory.annotation.Value;
-//import org.springframework.context.annotation.Bean;
-//import org.springframework.context.annotation.Configuration;
-//import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-//import org.springframework.web.reactive.function.client.WebClient;
-//import reactor.netty.http.client.HttpClient;
-//
-//import java.time.Duration;
-//
-//@Configuration
-//public class ChromaClientConfig {
-//
-//    @Bean("chromaWebClient")
-//    public WebClient chromaWebClient(
-//            @Value("${chroma.base-url:http://localhost:8000/api/v2}") String baseUrl
-//    ) {
-//        HttpClient httpClient = HttpClient.create()
-//                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
-//                .responseTimeout(Duration.ofSeconds(20))
-//                .doOnConnected(conn -> {
-//                    conn.addHandlerLast(new ReadTimeoutHandler(20));
-//                    conn.addHandlerLast(new WriteTimeoutHandler(20));
-//                });
-//
-//        return WebClient.builder()
-//                .baseUrl(baseUrl)
-//                .clientConnector(new ReactorClientHttpConnector(httpClient))
-//                .build();
-//    }
-//}
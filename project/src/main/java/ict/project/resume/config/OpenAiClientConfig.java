@@ -9,15 +9,23 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 // OpenAiClientConfig.java
 @Configuration
 public class OpenAiClientConfig {
     @Bean("openaiWebClient")
     public WebClient openaiWebClient(WebClient.Builder builder,
+                                     PooledHttpConnectors connectors,
                                      @Value("${openai.baseUrl:https://api.openai.com/v1}") String baseUrl,
-                                     @Value("${openai.apiKey}") String apiKey) {
+                                     @Value("${openai.apiKey}") String apiKey,
+                                     @Value("${openai.maxInMemorySize:33554432}") int maxInMemorySize) {
+        // 큰 배치 임베딩/긴 completion 을 고려해 응답 타임아웃은 넉넉하게, ALPN 으로 HTTP/2 사용
         return builder.baseUrl(baseUrl)
+                .clientConnector(connectors.connector("openai", Duration.ofSeconds(120), true))
                 .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                // 배치 임베딩 응답(입력 수 × 1536 floats JSON)은 기본 256KB 버퍼를 쉽게 넘김
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(maxInMemorySize))
                 .build();
     }
 }
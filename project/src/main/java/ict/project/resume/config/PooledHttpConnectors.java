@@ -0,0 +1,113 @@
+package ict.project.resume.config;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 업스트림별(chroma / openai / llm ...) Reactor Netty 커넥션 풀 + 커넥터 생성.
+ * 설정은 {upstream}.http.* 로 개별 지정 (없으면 기본값):
+ *   chroma.http.max-connections=50
+ *   chroma.http.pending-acquire-max-count=500       # 풀 대기열 상한 (넘치면 즉시 실패)
+ *   chroma.http.pending-acquire-timeout-ms=5000      # 풀 대기 상한 (무한 대기 방지)
+ *   chroma.http.max-idle-time-ms=30000               # 유휴 커넥션 정리 (서버 keep-alive 보다 짧게)
+ *   chroma.http.max-life-time-ms=300000              # 오래된 커넥션 교체 (LB/DNS 변경 대응)
+ *   chroma.http.evict-interval-ms=30000              # 백그라운드 정리 주기
+ *   chroma.http.connect-timeout-ms=3000
+ *   chroma.http.response-timeout-ms=30000
+ *   chroma.http.http2=false                          # true 면 H2 + HTTP/1.1 (ALPN 협상)
+ * 풀 지표는 /api/admin/metrics/http-pools 로 조회.
+ */
+@Slf4j
+@Component
+public class PooledHttpConnectors {
+
+    private final Environment env;
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+    /** "{pool}|{remote}" → 풀 지표 (reactor-netty 가 풀 생성 시 등록) */
+    private final Map<String, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+    public PooledHttpConnectors(Environment env) {
+        this.env = env;
+    }
+
+    /** 업스트림 이름별 커넥터 (응답 타임아웃 기본값은 업스트림 특성에 맞게 호출 측에서 지정) */
+    public ReactorClientHttpConnector connector(String upstream, Duration defaultResponseTimeout, boolean defaultHttp2) {
+        String p = upstream + ".http.";
+        ConnectionProvider provider = providers.computeIfAbsent(upstream, name -> ConnectionProvider.builder(name)
+                .maxConnections(env.getProperty(p + "max-connections", Integer.class, 50))
+                .pendingAcquireMaxCount(env.getProperty(p + "pending-acquire-max-count", Integer.class, 500))
+                .pendingAcquireTimeout(ms(p + "pending-acquire-timeout-ms", 5_000))
+                .maxIdleTime(ms(p + "max-idle-time-ms", 30_000))
+                .maxLifeTime(ms(p + "max-life-time-ms", 300_000))
+                .evictInBackground(ms(p + "evict-interval-ms", 30_000))
+                .metrics(true, MetricsRegistrar::new)
+                .build());
+
+        boolean http2 = env.getProperty(p + "http2", Boolean.class, defaultHttp2);
+        Duration responseTimeout = ms(p + "response-timeout-ms", defaultResponseTimeout.toMillis());
+
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, env.getProperty(p + "connect-timeout-ms", Integer.class, 3_000))
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(responseTimeout)
+                .protocol(http2
+                        ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                        : new HttpProtocol[]{HttpProtocol.HTTP11});
+
+        log.info("http pool [{}] maxConnections={}, responseTimeout={}, http2={}",
+                upstream, provider.maxConnections(), responseTimeout, http2);
+        return new ReactorClientHttpConnector(client);
+    }
+
+    /** 풀별 현재 상태 (관리/모니터링용) */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        poolMetrics.forEach((key, m) -> {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("acquired", m.acquiredSize());
+            s.put("idle", m.idleSize());
+            s.put("allocated", m.allocatedSize());
+            s.put("pending", m.pendingAcquireSize());
+            s.put("maxAllocated", m.maxAllocatedSize());
+            s.put("maxPending", m.maxPendingAcquireSize());
+            out.put(key, s);
+        });
+        return out;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+
+    private Duration ms(String key, long def) {
+        return Duration.ofMillis(env.getProperty(key, Long.class, def));
+    }
+
+    private final class MetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            poolMetrics.put(poolName + "|" + remoteAddress, metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            poolMetrics.remove(poolName + "|" + remoteAddress);
+        }
+    }
+}
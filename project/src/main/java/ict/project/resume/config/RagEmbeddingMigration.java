@@ -0,0 +1,166 @@
+package ict.project.resume.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ict.project.resume.repository.RagChunkJdbcWriter;
+import ict.project.resume.service.VectorCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * rag_chunk.embedding_json(JSON 텍스트) → rag_chunk.embedding(BLOB, VectorCodec) 1회성 변환
+ * - embedding_json 컬럼이 남아 있을 때만 동작 (변환 후 컬럼을 지우면 다음 기동부터는 바로 종료)
+ * - rag_id 키셋 페이징으로 batch-size 행씩 읽고 batchUpdate
+ * - "[]"(임베딩 미적용) 행은 NULL 유지
+ * - 실패해도 기동은 계속 (로그만 남기고 다음 기동 때 이어서 변환: embedding IS NULL 인 행만 대상)
+ * - 여러 인스턴스가 동시에 떠도 MySQL 네임드 락(GET_LOCK)으로 한 곳에서만 실행, 나머지는 건너뜀
+ * - embedding_json 삭제는 drop-json=true 일 때만 (다른 인스턴스/이전 버전이 아직 쓰고 있을 수 있으므로
+ *   모든 인스턴스가 새 버전으로 바뀐 뒤 한 번 켜서 실행). 기본은 NULL 허용으로만 바꿈
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.rag.embedding-migration.enabled", havingValue = "true", matchIfMissing = true)
+public class RagEmbeddingMigration implements ApplicationRunner {
+
+    private static final String LOCK_NAME = "rag_chunk_embedding_migration";
+
+    private final JdbcTemplate jdbc;
+    private final RagChunkJdbcWriter writer;
+    private final ObjectMapper om = new ObjectMapper();
+
+    /** 저장 형식: F32 | I8 */
+    @Value("${app.rag.embedding-format:F32}")
+    private VectorCodec.Format format;
+
+    @Value("${app.rag.embedding-migration.batch-size:500}")
+    private int batchSize;
+
+    /** 변환이 끝나면 embedding_json 컬럼 삭제 (기본 false = NULL 허용으로만 바꿔 둠) */
+    @Value("${app.rag.embedding-migration.drop-json:false}")
+    private boolean dropJson;
+
+    public RagEmbeddingMigration(JdbcTemplate jdbc, RagChunkJdbcWriter writer) {
+        this.jdbc = jdbc;
+        this.writer = writer;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (!hasColumn("embedding_json")) return;
+            // 락은 잡은 커넥션에 묶이므로 같은 커넥션에서 잡고 풂 (변환 자체는 다른 커넥션이어도 됨)
+            jdbc.execute((ConnectionCallback<Void>) con -> {
+                if (!tryLock(con)) {
+                    log.info("rag_chunk embedding migration is running on another instance, skipped");
+                    return null;
+                }
+                try {
+                    if (hasColumn("embedding_json")) migrate();
+                } catch (Exception e) {
+                    log.error("rag_chunk embedding migration failed (will retry on next start): {}", e.getMessage(), e);
+                } finally {
+                    unlock(con);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("rag_chunk embedding migration failed (will retry on next start): {}", e.getMessage(), e);
+        }
+    }
+
+    private static boolean tryLock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            ps.setString(1, LOCK_NAME);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void unlock(Connection con) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        }
+    }
+
+    private void migrate() throws Exception {
+        if (!hasColumn("embedding")) {
+            jdbc.execute("ALTER TABLE rag_chunk ADD COLUMN embedding BLOB NULL");
+        }
+        // NULL 허용이 된 뒤부터 새 INSERT 는 embedding_json 을 채우지 않음 (그 전까지는 RagChunkJdbcWriter 가 "[]" 를 씀)
+        if (!isNullable("embedding_json")) {
+            jdbc.execute("ALTER TABLE rag_chunk MODIFY COLUMN embedding_json JSON NULL");
+            writer.schemaChanged();
+        }
+
+        long started = System.currentTimeMillis();
+        int converted = 0;
+        int empty = 0;
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbc.queryForList(
+                    "SELECT rag_id, embedding_json FROM rag_chunk " +
+                            "WHERE rag_id > ? AND embedding IS NULL AND embedding_json IS NOT NULL ORDER BY rag_id LIMIT ?",
+                    lastId, batchSize);
+            if (rows.isEmpty()) break;
+
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            List<Object[]> empties = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                lastId = ((Number) row.get("rag_id")).longValue();
+                float[] vec = om.readValue(row.get("embedding_json").toString(), float[].class);
+                if (vec == null || vec.length == 0) {
+                    empties.add(new Object[]{lastId});
+                    continue;
+                }
+                updates.add(new Object[]{VectorCodec.encode(vec, format), lastId});
+            }
+            if (!updates.isEmpty()) {
+                jdbc.batchUpdate("UPDATE rag_chunk SET embedding = ? WHERE rag_id = ?", updates);
+                converted += updates.size();
+            }
+            // "[]" 는 NULL 로 → 다음 기동 때 다시 읽지 않음 (컬럼을 남겨 두는 기본 설정에서도 변환은 한 번만)
+            if (!empties.isEmpty()) {
+                jdbc.batchUpdate("UPDATE rag_chunk SET embedding_json = NULL WHERE rag_id = ?", empties);
+                empty += empties.size();
+            }
+        }
+
+        if (dropJson) {
+            jdbc.execute("ALTER TABLE rag_chunk DROP COLUMN embedding_json");
+            writer.schemaChanged();
+        }
+        log.info("rag_chunk embedding migration done: converted={}, empty={}, format={}, droppedJson={}, elapsedMs={}",
+                converted, empty, format, dropJson, System.currentTimeMillis() - started);
+    }
+
+    private boolean isNullable(String column) {
+        Integer n = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'rag_chunk' AND column_name = ? AND is_nullable = 'YES'",
+                Integer.class, column);
+        return n != null && n > 0;
+    }
+
+    private boolean hasColumn(String column) {
+        Integer n = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'rag_chunk' AND column_name = ?",
+                Integer.class, column);
+        return n != null && n > 0;
+    }
+}
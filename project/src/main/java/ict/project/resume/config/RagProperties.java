@@ -0,0 +1,30 @@
+package ict.project.resume.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * RagService 설정 (app.rag.*)
+ * - 필드 기본값이 곧 설정 기본값 → 스프링 밖(벤치마크 등)에서 new RagProperties() 로 만들어도 운영과 같은 값
+ */
+@ConfigurationProperties(prefix = "app.rag")
+@Getter
+@Setter
+public class RagProperties {
+
+    /** 전역 코퍼스를 저장할 관리자 User.id */
+    private Integer adminUserId = 1;
+
+    /** 프롬프트 앞부분(지침 + 전역 코퍼스) 캐시 유지 시간. 0 이하면 무효화될 때까지 유지 */
+    private long promptPrefixTtlSec = 300;
+
+    /** 청크 토큰 상한 (0 이하면 문자 상한만) */
+    private int chunkMaxTokens = 512;
+
+    /** 앞 청크 끝 문장을 다음 청크 앞에 반복하는 토큰 수 (0 이면 겹침 없음) */
+    private int chunkOverlapTokens = 64;
+
+    /** 관련도 순위용 코퍼스 색인에 올릴 최대 청크 수 (저장 순서 앞에서부터, 넘으면 경고 로그) */
+    private int corpusIndexMaxChunks = 20000;
+}
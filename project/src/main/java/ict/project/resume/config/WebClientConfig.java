@@ -6,13 +6,19 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 // WebClientConfig.java
 @Configuration
 public class WebClientConfig {
     @Bean("chromaWebClient")
     public WebClient chromaWebClient(WebClient.Builder builder,
+                                     PooledHttpConnectors connectors,
                                      @Value("${chroma.baseUrl:http://localhost:8000}") String baseUrl) {
-        return builder.baseUrl(baseUrl).build();
+        // Chroma(uvicorn)는 HTTP/1.1 전용
+        return builder.baseUrl(baseUrl)
+                .clientConnector(connectors.connector("chroma", Duration.ofSeconds(30), false))
+                .build();
     }
 }
 
@@ -16,11 +16,21 @@ public class AdminChromaBackfillController {
     public ResponseEntity<?> backfillAccepted(
             @RequestParam(defaultValue = "accepted-essays") String collection,
             @RequestParam(defaultValue = "100") int pageSize,
-            @RequestParam(defaultValue = "0") int maxDocs
+            @RequestParam(defaultValue = "0") int maxDocs,
+            @RequestParam(defaultValue = "scan") String processor,   // scan | reembed | (BackfillPageProcessor 빈 이름)
+            @RequestParam(defaultValue = "0") int concurrency        // 0 = backfill.workers
     ) {
-        backfillAcceptedEssaysService.runBackfill(collection, pageSize, maxDocs);
-        return ResponseEntity.ok(
-                java.util.Map.of("ok", true, "collection", collection, "pageSize", pageSize, "maxDocs", maxDocs)
-        );
+        try {
+            return ResponseEntity.ok(
+                    backfillAcceptedEssaysService.runBackfill(collection, pageSize, maxDocs, processor, concurrency)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/backfill/processors")
+    public java.util.Set<String> processors() {
+        return backfillAcceptedEssaysService.processorNames();
     }
 }
@@ -2,12 +2,15 @@
 package ict.project.resume.controller;
 
 import ict.project.resume.service.BulkExcelIngestService;
+import ict.project.resume.service.IngestJobService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,6 +19,7 @@ import java.util.Map;
 public class AdminExcelController {
 
     private final BulkExcelIngestService bulkExcelIngestService;
+    private final IngestJobService ingestJobService;
 
     @PostMapping(value = "/excel", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> ingest(
@@ -33,4 +37,43 @@ public class AdminExcelController {
             return ResponseEntity.badRequest().body("엑셀 적재 실패: " + e.getMessage());
         }
     }
+
+    /** 백그라운드 적재 작업 등록 → jobId 로 진행률 조회 */
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "800") int maxLen,
+            @RequestParam(defaultValue = "PASS_SAMPLE") String sourceTag
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestJobService.submit(file, sourceTag, maxLen));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("엑셀 적재 작업 등록 실패: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs")
+    public List<Map<String, Object>> jobs() {
+        return ingestJobService.list();
+    }
+
+    /** 진행률: rowsCompleted / totalRows, rowsPerSec, etaSec */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> job(@PathVariable String id) {
+        return ingestJobService.status(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** 실패/중단된 작업 이어서 실행 (이미 저장된 청크는 건너뜀) */
+    @PostMapping("/jobs/{id}/resume")
+    public ResponseEntity<?> resume(@PathVariable String id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ingestJobService.resume(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package ict.project.resume.controller;
+
+import ict.project.feedback.core.RewriteCache;
+import ict.project.resume.config.PooledHttpConnectors;
+import ict.project.resume.service.CachingOpenAiEmbeddingClient;
+import ict.project.resume.service.TokenCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+public class AdminMetricsController {
+
+    private final CachingOpenAiEmbeddingClient embeddingCache;
+    private final PooledHttpConnectors httpConnectors;
+    private final RewriteCache rewriteCache;
+    private final TokenCounter tokenCounter;
+
+    /** 임베딩 캐시 적중/미스 통계 */
+    @GetMapping("/embedding-cache")
+    public ResponseEntity<?> embeddingCache() {
+        return ResponseEntity.ok(embeddingCache.stats());
+    }
+
+    /** 업스트림별 HTTP 커넥션 풀 상태 (사용 중/유휴/대기) */
+    @GetMapping("/http-pools")
+    public ResponseEntity<?> httpPools() {
+        return ResponseEntity.ok(httpConnectors.stats());
+    }
+
+    /** LLM 재작성 결과 캐시 적중/미스 통계 */
+    @GetMapping("/rewrite-cache")
+    public ResponseEntity<?> rewriteCache() {
+        return ResponseEntity.ok(rewriteCache.stats());
+    }
+
+    /** 호출 지점별 토큰 사용량/잘림 통계 (프롬프트, 임베딩 입력) */
+    @GetMapping("/tokens")
+    public ResponseEntity<?> tokens() {
+        return ResponseEntity.ok(tokenCounter.stats());
+    }
+}
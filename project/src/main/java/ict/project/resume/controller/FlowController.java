@@ -1,19 +1,25 @@
 package ict.project.resume.controller;
 
 import ict.project.resume.service.ChromaVectorStoreService;
+import ict.project.resume.service.ChromaVectorStoreService.SearchHit;
 import ict.project.resume.service.EmbeddingService;
 import ict.project.resume.service.FileTextExtractor;
 import ict.project.resume.service.JobPostingFetcher;
 import ict.project.resume.service.LlmClientService;   // ⬅️ LLM 클라이언트 주입
+import ict.project.resume.service.TokenCounter;
+import ict.project.resume.service.VectorStoreService;
 import ict.project.resumeAnalyze.ResumeAnalyzeService;
 import ict.project.resumeAnalyze.dto.InputRequestDto;
 import ict.project.user.service.JwtUtil;
 import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.util.LinkedHashMap;
@@ -34,6 +40,8 @@ public class FlowController {
     private final LlmClientService llmClient; // ⬅️ 추가
     private final JwtUtil jwtUtil;
     private final ResumeAnalyzeService resumeAnalyzeService;
+    private final ObjectProvider<VectorStoreService> embeddedVectorStore; // vector.store.mode=embedded 일 때만 존재
+    private final TokenCounter tokenCounter;
 
     public FlowController(
             FileTextExtractor fileTextExtractor,
@@ -42,7 +50,9 @@ public class FlowController {
             ChromaVectorStoreService chromaVectorStoreService,
             LlmClientService llmClient, // ⬅️ 추가
             JwtUtil jwtUtil,
-            ResumeAnalyzeService resumeAnalyzeService
+            ResumeAnalyzeService resumeAnalyzeService,
+            ObjectProvider<VectorStoreService> embeddedVectorStore,
+            TokenCounter tokenCounter
     ) {
         this.fileTextExtractor = fileTextExtractor;
         this.jobPostingFetcher = jobPostingFetcher;
@@ -51,6 +61,8 @@ public class FlowController {
         this.llmClient = llmClient; // ⬅️ 추가
         this.jwtUtil = jwtUtil;
         this.resumeAnalyzeService = resumeAnalyzeService;
+        this.embeddedVectorStore = embeddedVectorStore;
+        this.tokenCounter = tokenCounter;
     }
 
     /**
@@ -75,13 +87,13 @@ public class FlowController {
         // 1) 파일 텍스트 추출
         String resumeText = fileTextExtractor.extract(resumeFile);
 
-        // 2) 채용공고 텍스트
-        String postingText = jobPostingFetcher.fetch(jobUrl);
-
-        // 3) 벡터 검색
+        // 2) 채용공고 텍스트 + 3) 벡터 검색 (서로 독립이라 동시에 진행)
         String resumeForEmbedding = limitForEmbedding(resumeText);
-        List<Float> queryEmb = embeddingService.embedAsList(resumeForEmbedding);
-        var hits = chromaVectorStoreService.search(collection, queryEmb, topK);
+        Mono<String> postingMono = Mono.fromCallable(() -> jobPostingFetcher.fetch(jobUrl))
+                .subscribeOn(Schedulers.boundedElastic()); // fetcher 는 블로킹 I/O
+        var both = Mono.zip(postingMono, searchMono(collection, resumeForEmbedding, topK)).block();
+        String postingText = both.getT1();
+        List<SearchHit> hits = both.getT2();
 
         // 3-1) 프롬프트용 코퍼스 블록 (id/distance/text 요약)
         String corpusBlock = hits.stream()
@@ -91,6 +103,7 @@ public class FlowController {
 
         // 3-2) 분석 생성 (LLM 호출)
         String prompt = buildRagPrompt(resumeText, postingText, corpusBlock);
+        tokenCounter.record("flow.prompt", tokenCounter.count(prompt));
         String analysis;
         try {
             // ⚠️ LlmClientService 메소드명은 프로젝트에 맞게 쓰세요.
@@ -128,11 +141,24 @@ public class FlowController {
     // helpers
     // --------------------
 
-    /** 임베딩 모델 입력 길이 보호용(토큰이 아닌 문자 기준 대략 컷) */
-    private static String limitForEmbedding(String s) {
-        if (s == null) return "";
-        int maxChars = 16_000;
-        return s.length() > maxChars ? s.substring(0, maxChars) : s;
+    /**
+     * 임베디드 벡터 스토어가 켜져 있으면 JVM 내부 HNSW 검색, 아니면 Chroma 검색
+     * 임베딩은 배처 future, Chroma 는 논블로킹 WebClient 라서 대기 중 스레드를 잡지 않음
+     */
+    private Mono<List<SearchHit>> searchMono(String collection, String text, int topK) {
+        Mono<float[]> queryEmb = Mono.fromFuture(() -> embeddingService.embedAsync(text));
+        VectorStoreService embedded = embeddedVectorStore.getIfAvailable();
+        if (embedded == null) {
+            return queryEmb.flatMap(v -> chromaVectorStoreService.searchMono(collection, EmbeddingService.toList(v), topK));
+        }
+        return queryEmb.map(v -> embedded.query(collection, v, topK).stream()
+                .map(r -> new SearchHit(r.id(), r.text(), r.distance()))
+                .toList());
+    }
+
+    /** 임베딩 모델 입력 길이 보호용 (임베딩 모델 토큰 상한 기준) */
+    private String limitForEmbedding(String s) {
+        return tokenCounter.truncateForEmbedding("flow.resume", s);
     }
 
     /** 프리뷰용 문자열 정리 + 말줄임 */
@@ -20,6 +20,6 @@ public class RagChunkDto {
     private String source;
     private String filePath;
     private String content;
-    private String embeddingJson;
+    private Integer embeddingDim; // 임베딩 차원 (없으면 null)
     private LocalDateTime createdAt;
 }
@@ -15,7 +15,9 @@ import java.time.LocalDateTime;
         name = "rag_chunk",
         indexes = {
                 @Index(name = "idx_rag_user", columnList = "user_id"),
-                @Index(name = "idx_rag_source", columnList = "source")
+                @Index(name = "idx_rag_source", columnList = "source"),
+                // 프롬프트 구성 조회 (user_id, source) + rag_id 순 정렬
+                @Index(name = "idx_rag_user_source", columnList = "user_id, source, rag_id")
         },
         uniqueConstraints = {
                 @UniqueConstraint(
@@ -48,9 +50,10 @@ public class RagChunkEntity {
     @Column(name = "content", nullable = false, columnDefinition = "MEDIUMTEXT")
     private String content;
 
-    // JSON 문자열로 저장 (임베딩 벡터 직렬화)
-    @Column(name = "embedding_json", columnDefinition = "JSON", nullable = false)
-    private String embeddingJson;
+    // 임베딩 벡터 바이너리 (VectorCodec: 8바이트 헤더 + float32/int8 LE), 임베딩 전이면 NULL
+    @Lob
+    @Column(name = "embedding", columnDefinition = "BLOB")
+    private byte[] embedding;
 
     // DB DEFAULT CURRENT_TIMESTAMP 사용 (insertable/updatable=false)
     @Column(name = "created_at", insertable = false, updatable = false)
@@ -0,0 +1,169 @@
+package ict.project.resume.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * rag_chunk 대량 저장 (JdbcTemplate, multi-row INSERT IGNORE)
+ * - rag_id 가 IDENTITY 라 JPA save() 는 행마다 왕복 → 여러 행을 한 INSERT 문으로 묶음
+ * - 같은 호출 안의 중복 본문은 SHA-256 으로 미리 걸러냄 (content_hash 와 같은 기준)
+ * - 이미 저장된 행은 uq_rag_unique(user_id, source, file_path, content_hash) 에 걸려 IGNORE 로 건너뜀
+ * - IGNORE 는 중복뿐 아니라 모든 오류를 경고로 바꿈(긴 문자열은 잘려서 저장, FK 위반 행은 조용히 누락)
+ *   → source/file_path 길이는 INSERT 전에 검사해서 예전 save() 처럼 예외로 알림.
+ *     그 밖에 DB 가 거부한 행도 skipped 에 포함됨 (user_id 존재 여부는 호출 쪽에서 확인)
+ * - 호출한 트랜잭션(JPA)에 그대로 참여
+ * - 예전 스키마(embedding_json JSON NOT NULL)가 남아 있으면 "[]" 를 같이 씀
+ *   (RagEmbeddingMigration 이 NULL 허용으로 바꾸거나 삭제하기 전까지. IGNORE 가 NOT NULL 오류를 경고로 바꿔 주는 데 기대지 않음)
+ */
+@Slf4j
+@Repository
+public class RagChunkJdbcWriter {
+
+    /** 저장 결과: 새로 들어간 행 / 건너뛴 행 (호출 내 중복 + DB 에 이미 있던 행 + IGNORE 로 무시된 행) */
+    public record Result(int inserted, int skipped) {
+        public static final Result EMPTY = new Result(0, 0);
+    }
+
+    private static final String INSERT_PREFIX =
+            "INSERT IGNORE INTO rag_chunk (user_id, source, file_path, content) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?)";
+    private static final int COLUMNS = 4;
+
+    /** rag_chunk 컬럼 길이 (RagChunkEntity 와 같게) */
+    private static final int SOURCE_MAX = 32;
+    private static final int FILE_PATH_MAX = 255;
+
+    private static final String LEGACY_INSERT_PREFIX =
+            "INSERT IGNORE INTO rag_chunk (user_id, source, file_path, content, embedding_json) VALUES ";
+    private static final String LEGACY_ROW = "(?, ?, ?, ?, '[]')";
+
+    private final JdbcTemplate jdbc;
+
+    /** INSERT 한 문장에 담는 최대 행 수 */
+    @Value("${app.rag.insert-batch-rows:200}")
+    private int batchRows;
+
+    /** INSERT 한 문장의 최대 본문 문자 수 (max_allowed_packet 보호) */
+    @Value("${app.rag.insert-batch-chars:2000000}")
+    private int batchChars;
+
+    /** embedding_json 이 아직 NOT NULL 인지 (null = 아직 확인 전). NULL 허용/삭제 후에는 다시 NOT NULL 이 되지 않음 */
+    private volatile Boolean legacyJsonColumn;
+
+    public RagChunkJdbcWriter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** 같은 사용자/소스/파일의 청크들을 저장 (빈 본문 제외) */
+    public Result insertChunks(Integer userId, String source, String filePath, List<String> contents) {
+        if (contents == null || contents.isEmpty()) return Result.EMPTY;
+        if (source == null || source.isBlank() || source.length() > SOURCE_MAX) {
+            throw new IllegalArgumentException("source 가 비었거나 " + SOURCE_MAX + "자를 넘습니다: " + source);
+        }
+        if (filePath != null && filePath.length() > FILE_PATH_MAX) {
+            throw new IllegalArgumentException("filePath 가 " + FILE_PATH_MAX + "자를 넘습니다: " + filePath.length() + "자");
+        }
+
+        // 1) 호출 내 중복 제거 (content_hash 기준)
+        Set<String> seen = new HashSet<>();
+        List<String> unique = new ArrayList<>(contents.size());
+        int skipped = 0;
+        for (String c : contents) {
+            if (c == null || c.isBlank() || !seen.add(sha256(c))) {
+                skipped++;
+                continue;
+            }
+            unique.add(c);
+        }
+
+        // 2) multi-row INSERT IGNORE (행 수/문자 수 상한마다 끊어서)
+        int inserted = 0;
+        int from = 0;
+        while (from < unique.size()) {
+            int to = from;
+            long chars = 0;
+            while (to < unique.size() && to - from < Math.max(1, batchRows)
+                    && (to == from || chars + unique.get(to).length() <= batchChars)) {
+                chars += unique.get(to).length();
+                to++;
+            }
+            inserted += insertRows(userId, source, filePath, unique.subList(from, to));
+            from = to;
+        }
+        skipped += unique.size() - inserted;
+
+        log.debug("rag_chunk bulk insert: userId={}, source={}, inserted={}, skipped={}", userId, source, inserted, skipped);
+        return new Result(inserted, skipped);
+    }
+
+    private int insertRows(Integer userId, String source, String filePath, List<String> rows) {
+        boolean legacy = legacyJsonColumn();
+        try {
+            return insertRows(userId, source, filePath, rows, legacy);
+        } catch (BadSqlGrammarException e) {
+            // 다른 인스턴스가 embedding_json 을 삭제한 경우 → 스키마를 다시 확인하고 한 번만 재시도
+            if (!legacy) throw e;
+            schemaChanged();
+            return insertRows(userId, source, filePath, rows, legacyJsonColumn());
+        }
+    }
+
+    private int insertRows(Integer userId, String source, String filePath, List<String> rows, boolean legacy) {
+        String prefix = legacy ? LEGACY_INSERT_PREFIX : INSERT_PREFIX;
+        String row = legacy ? LEGACY_ROW : ROW;
+        StringBuilder sql = new StringBuilder(prefix.length() + rows.size() * (row.length() + 2));
+        sql.append(prefix);
+        Object[] args = new Object[rows.size() * COLUMNS];
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(row);
+            int a = i * COLUMNS;
+            args[a] = userId;
+            args[a + 1] = source;
+            args[a + 2] = filePath;
+            args[a + 3] = rows.get(i); // embedding 은 NULL (임베딩 미적용)
+        }
+        // INSERT IGNORE 의 영향 행 수 = 실제로 들어간 행 수 (unique 충돌로 무시된 행 제외)
+        return jdbc.update(sql.toString(), args);
+    }
+
+    /** RagEmbeddingMigration 이 embedding_json 을 바꾼 뒤 호출 → 다음 INSERT 때 스키마 다시 확인 */
+    public void schemaChanged() {
+        legacyJsonColumn = null;
+    }
+
+    private boolean legacyJsonColumn() {
+        Boolean legacy = legacyJsonColumn;
+        if (legacy == null) {
+            Integer n = jdbc.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.columns " +
+                            "WHERE table_schema = DATABASE() AND table_name = 'rag_chunk' " +
+                            "AND column_name = 'embedding_json' AND is_nullable = 'NO'",
+                    Integer.class);
+            legacy = n != null && n > 0;
+            legacyJsonColumn = legacy;
+        }
+        return legacy;
+    }
+
+    static String sha256(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,7 +2,11 @@ package ict.project.resume.repository;
 
 import ict.project.resume.entity.RagChunkEntity;
 import ict.project.user.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +18,35 @@ public interface RagChunkRepository extends JpaRepository<RagChunkEntity, Intege
     Optional<RagChunkEntity> findTopByUserAndSourceOrderByCreatedAtDesc(UserEntity user, String source);
 
     boolean existsByUserAndSourceAndFilePathAndContent(UserEntity user, String source, String filePath, String content);
+
+    /**
+     * 프롬프트 구성용: 본문만, 저장 순서대로 pageable 개수만큼
+     * - 엔티티/embedding 을 읽지 않음 → 청크가 아무리 많아도 조회 비용은 limit 에 비례
+     */
+    @Query("select c.content from RagChunkEntity c where c.user.id = :userId and c.source = :source order by c.ragId asc")
+    List<String> findContents(@Param("userId") Integer userId, @Param("source") String source, Pageable pageable);
+
+    /** 키셋 페이징용 프로젝션 (rag_id + 본문) */
+    interface ContentRow {
+        Integer getRagId();
+
+        String getContent();
+    }
+
+    /**
+     * 코퍼스 색인용: rag_id > after 인 본문을 저장 순서대로 pageable 개수만큼 (키셋 페이징)
+     * - OFFSET 과 달리 뒤쪽 페이지도 idx_rag_user_source 에서 바로 이어 읽음
+     */
+    @Query("select c.ragId as ragId, c.content as content from RagChunkEntity c " +
+            "where c.user.id = :userId and c.source = :source and c.ragId > :after order by c.ragId asc")
+    List<ContentRow> findContentsAfter(@Param("userId") Integer userId, @Param("source") String source,
+                                       @Param("after") Integer after, Pageable pageable);
+
+    @Query("select count(c) from RagChunkEntity c where c.user.id = :userId and c.source = :source")
+    long countByUserIdAndSource(@Param("userId") Integer userId, @Param("source") String source);
+
+    /** 엔티티를 읽지 않고 한 번의 DELETE 로 삭제 */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from RagChunkEntity c where c.user.id = :userId and c.source = :source")
+    int deleteByUserIdAndSource(@Param("userId") Integer userId, @Param("source") String source);
 }
@@ -1,40 +1,80 @@
 package ict.project.resume.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpStatusCode;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
 import java.util.*;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 컬렉션 백필 엔진
+ * - /count 로 전체 개수를 구한 뒤 [0, total) 을 워커 수만큼 연속 구간으로 나눔
+ * - 워커마다 자기 구간을 pageSize 단위로 /get → 현재 페이지를 처리하는 동안 다음 페이지를 미리 요청(prefetch)
+ * - 페이지 처리는 BackfillPageProcessor 빈(name 으로 선택)에 위임, 기본 "scan" 은 읽기만 함
+ * - Chroma 는 커서 페이징이 없어 offset 이 깊을수록 느려짐. 구간을 나눠도 뒤쪽 워커는 여전히 깊은 offset 을 요청하므로
+ *   얕아지는 것은 아니고, 이득은 여러 구간을 동시에 진행하는 데서 나옴 (전체 시간 ≈ 가장 깊은 구간 하나)
+ */
 @Slf4j
 @Service
 public class BackfillAcceptedEssaysService {
 
-    private final WebClient chroma;
+    /** 실행 결과/처리량 리포트 */
+    public record Report(String collection, String processor, int total, int processed, int pages, int workers,
+                         int pageSize, long elapsedMs, double docsPerSec, long fetchWaitMs, long processMs) {}
+
+    private static final String SCAN = "scan";
+
+    private final ReactiveChromaService chroma;
+    private final ChromaService chromaService;
+    private final Map<String, BackfillPageProcessor> processors = new LinkedHashMap<>();
+
+    /** 동시에 구간을 처리하는 워커 수 */
+    @Value("${backfill.workers:8}")
+    private int workers;
 
-    // ✅ 명시적 생성자 + Qualifier로 WebClient 충돌 해결
-    @Autowired
-    public BackfillAcceptedEssaysService(@Qualifier("chromaWebClient") WebClient chroma) {
+    /** 페이지 조회 실패 시 재시도 횟수 */
+    @Value("${backfill.fetch-retries:2}")
+    private int fetchRetries;
+
+    public BackfillAcceptedEssaysService(ReactiveChromaService chroma, ChromaService chromaService,
+                                         List<BackfillPageProcessor> processors) {
         this.chroma = chroma;
+        this.chromaService = chromaService;
+        for (BackfillPageProcessor p : processors) this.processors.put(p.name(), p);
+        this.processors.putIfAbsent(SCAN, new ScanProcessor());
+    }
+
+    public Set<String> processorNames() {
+        return Collections.unmodifiableSet(processors.keySet());
     }
 
-    // application.properties 예:
-    // chroma.tenant=default_tenant
-    // chroma.database=default_db
-    private final String tenant = System.getProperty("chroma.tenant", "default_tenant");
-    private final String database = System.getProperty("chroma.database", "default_db");
+    /** 기존 호환용: 읽기만 하는 백필 */
+    public Report runBackfill(String collection, int pageSize, int maxDocs) {
+        return runBackfill(collection, pageSize, maxDocs, SCAN, 0);
+    }
 
     /**
-     * 컬렉션을 페이지 단위로 가져와 일괄 처리(backfill)
+     * 컬렉션을 구간별로 병렬 조회하며 페이지마다 processor 실행
+     * @param concurrency 0 이하면 backfill.workers
      */
-    public void runBackfill(String collection, int pageSize, int maxDocs) {
+    public Report runBackfill(String collection, int pageSize, int maxDocs, String processorName, int concurrency) {
         Objects.requireNonNull(collection, "collection must not be null");
         if (pageSize <= 0) pageSize = 100;
+        BackfillPageProcessor processor = processors.get(processorName == null ? SCAN : processorName);
+        if (processor == null) {
+            throw new IllegalArgumentException("unknown processor: " + processorName + " (available: " + processors.keySet() + ")");
+        }
 
         UUID cid;
         try {
@@ -42,73 +82,168 @@ public class BackfillAcceptedEssaysService {
         } catch (Exception ignore) {
             cid = null; // 문자열 이름 컬렉션일 수도 있음
         }
-        String collectionPath = (cid != null) ? cid.toString() : collection;
-
-        int offset = 0;
-        int processed = 0;
-
-        log.info("Backfill start: collection='{}' (path={}), pageSize={}, maxDocs={}",
-                collection, collectionPath, pageSize, maxDocs);
-
-        while (true) {
-            // ✅ 더블브레이스 초기화 금지 (offset 캡처 버그 방지)
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("limit", pageSize);
-            payload.put("offset", offset);
-            payload.put("include", List.of("documents")); // ids 금지, where/where_document 미지정
-
-            Map<String, Object> pageResp = chroma.post()
-                    .uri("/tenants/{t}/databases/{d}/collections/{cid}/get", tenant, database, collectionPath)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .bodyValue(payload)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::isError, resp ->
-                            resp.bodyToMono(String.class).map(body -> {
-                                log.error("Chroma GET error {} body={}", resp.statusCode(), body);
-                                return new RuntimeException("Chroma get failed: " + body);
-                            })
-                    )
-                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                    .block();
-
-            List<String> docs = extractDocs(pageResp);
-            if (docs.isEmpty()) {
-                log.info("No more documents. offset={}, processed={}", offset, processed);
-                break;
+        // 이름이면 id 로 변환 (v2 경로는 UUID 만 받음, 결과는 캐시됨)
+        String collectionPath = (cid != null) ? cid.toString() : chromaService.ensureCollectionId(collection);
+
+        // 시작 시점 개수로 범위 고정 (처리 중 추가되는 레코드는 다음 실행에서)
+        int total = chromaService.count(collectionPath);
+        if (maxDocs > 0) total = Math.min(total, maxDocs);
+
+        int n = Math.max(1, concurrency > 0 ? concurrency : workers);
+        n = Math.min(n, Math.max(1, (total + pageSize - 1) / pageSize)); // 페이지 수보다 많은 워커는 의미 없음
+
+        log.info("Backfill start: collection='{}' (path={}), total={}, pageSize={}, workers={}, processor={}",
+                collection, collectionPath, total, pageSize, n, processor.name());
+
+        Run run = new Run(collectionPath, pageSize, processor);
+        long started = System.currentTimeMillis();
+
+        if (total > 0) {
+            ExecutorService pool = Executors.newFixedThreadPool(n, new BackfillThreads());
+            try {
+                List<Future<?>> futures = new ArrayList<>(n);
+                int span = (total + n - 1) / n;
+                for (int i = 0; i < n; i++) {
+                    int from = i * span;
+                    int to = Math.min(total, from + span);
+                    if (from >= to) break;
+                    futures.add(pool.submit(() -> {
+                        try {
+                            run.range(from, to);
+                        } catch (RuntimeException e) {
+                            run.fail(e); // 다른 워커도 다음 페이지에서 멈춤
+                            throw e;
+                        }
+                    }));
+                }
+                for (Future<?> f : futures) f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.fail(e);
+            } catch (ExecutionException e) {
+                run.fail(e.getCause());
+            } finally {
+                pool.shutdownNow();
             }
+        }
 
-            // TODO: 여기서 docs 처리 (파싱/저장/재색인 등)
-            processed += docs.size();
-            log.info("Fetched {} docs (this page), total processed={}", docs.size(), processed);
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        int processed = run.processed.intValue();
+        Report report = new Report(collection, processor.name(), total, processed, run.pages.intValue(), n, pageSize,
+                elapsed, Math.round(processed * 1000.0 / elapsed * 10) / 10.0,
+                run.fetchWaitNanos.sum() / 1_000_000, run.processNanos.sum() / 1_000_000);
+
+        if (run.failure.get() != null) {
+            Throwable f = run.failure.get();
+            log.error("Backfill failed after processed={}: {}", processed, f.getMessage());
+            throw new IllegalStateException("backfill failed: " + f.getMessage(), f);
+        }
+        log.info("Backfill done. {}", report);
+        return report;
+    }
 
-            // 다음 페이지
-            offset += docs.size();
+    /** 한 번의 실행 상태 (워커들이 공유) */
+    private final class Run {
+        final String collectionId;
+        final int pageSize;
+        final BackfillPageProcessor processor;
+        final LongAdder processed = new LongAdder();
+        final AtomicInteger pages = new AtomicInteger();
+        final LongAdder fetchWaitNanos = new LongAdder();
+        final LongAdder processNanos = new LongAdder();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Run(String collectionId, int pageSize, BackfillPageProcessor processor) {
+            this.collectionId = collectionId;
+            this.pageSize = pageSize;
+            this.processor = processor;
+        }
 
-            if (maxDocs > 0 && processed >= maxDocs) {
-                log.info("Reached maxDocs ({}). Stop.", maxDocs);
-                break;
+        /** [from, to) 구간 처리: 현재 페이지 처리 중에 다음 페이지 요청을 미리 걸어 둠 */
+        void range(int from, int to) {
+            CompletableFuture<BackfillPageProcessor.Page> pending = fetch(from, Math.min(pageSize, to - from));
+            int offset = from;
+            while (pending != null && failure.get() == null) {
+                long t0 = System.nanoTime();
+                BackfillPageProcessor.Page page = pending.join();
+                fetchWaitNanos.add(System.nanoTime() - t0);
+                if (page.size() == 0) break; // 컬렉션이 줄어든 경우
+
+                int next = offset + page.size();
+                pending = next < to ? fetch(next, Math.min(pageSize, to - next)) : null;
+
+                long t1 = System.nanoTime();
+                try {
+                    processor.process(collectionId, page);
+                } catch (Exception e) {
+                    if (pending != null) pending.cancel(true);
+                    throw new IllegalStateException("page offset=" + offset + ": " + e.getMessage(), e);
+                }
+                processNanos.add(System.nanoTime() - t1);
+                processed.add(page.size());
+                int p = pages.incrementAndGet();
+                if (p % 50 == 0) log.info("Backfill progress: pages={}, processed={}", p, processed.sum());
+                offset = next;
             }
         }
 
-        log.info("Backfill done. total processed={}", processed);
+        CompletableFuture<BackfillPageProcessor.Page> fetch(int offset, int limit) {
+            return chroma.getRange(collectionId, limit, offset, processor.include())
+                    .retryWhen(Retry.backoff(fetchRetries, Duration.ofMillis(200)))
+                    .map(resp -> toPage(offset, resp))
+                    .toFuture();
+        }
+
+        void fail(Throwable t) {
+            failure.compareAndSet(null, t);
+        }
     }
 
     @SuppressWarnings("unchecked")
-    private List<String> extractDocs(Map<String, Object> pageResp) {
-        if (pageResp == null) return Collections.emptyList();
-        Object docsObj = pageResp.getOrDefault("documents", null);
-        if (!(docsObj instanceof List<?> list)) return Collections.emptyList();
-
-        List<String> out = new ArrayList<>();
-        for (Object o : list) {
-            if (o == null) continue;
-            if (o instanceof List<?> inner) {
-                for (Object i : inner) if (i != null) out.add(String.valueOf(i));
-            } else {
-                out.add(String.valueOf(o));
-            }
+    private static BackfillPageProcessor.Page toPage(int offset, Map<String, Object> resp) {
+        List<String> ids = column(resp, "ids");
+        List<String> docs = resp.get("documents") instanceof List<?> ? column(resp, "documents") : null;
+        List<Map<String, Object>> metas = null;
+        if (resp.get("metadatas") instanceof List<?> list) {
+            metas = new ArrayList<>(list.size());
+            for (Object o : list) metas.add(o instanceof Map<?, ?> m ? (Map<String, Object>) m : null);
         }
+        return new BackfillPageProcessor.Page(offset, ids, docs, metas);
+    }
+
+    /** /get 응답 컬럼 (ids 와 같은 길이, 값이 없으면 null 자리 유지) */
+    private static List<String> column(Map<String, Object> resp, String key) {
+        if (resp == null || !(resp.get(key) instanceof List<?> list)) return Collections.emptyList();
+        List<String> out = new ArrayList<>(list.size());
+        for (Object o : list) out.add(o == null ? null : String.valueOf(o));
         return out;
     }
+
+    /** 기본 처리기: 읽기만 (조회 처리량 측정/점검용) */
+    private static final class ScanProcessor implements BackfillPageProcessor {
+        @Override
+        public String name() {
+            return SCAN;
+        }
+
+        @Override
+        public List<String> include() {
+            return List.of();
+        }
+
+        @Override
+        public void process(String collectionId, Page page) {
+        }
+    }
+
+    private static final class BackfillThreads implements ThreadFactory {
+        private final AtomicInteger seq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "backfill-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package ict.project.resume.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 백필 페이지 처리기 (재임베딩, 재청킹 등)
+ * - 빈으로 등록하면 name() 으로 선택 가능: POST /api/admin/chroma/backfill/accepted?processor=...
+ * - process() 는 여러 워커 스레드에서 동시에 호출됨 → 구현체는 스레드 안전해야 함
+ */
+public interface BackfillPageProcessor {
+
+    /** 한 번의 /get 으로 받은 페이지 (ids 와 같은 인덱스로 정렬, include 에 없는 필드는 null) */
+    record Page(int offset, List<String> ids, List<String> documents, List<Map<String, Object>> metadatas) {
+        public int size() {
+            return ids.size();
+        }
+    }
+
+    String name();
+
+    /** /get 요청에 넣을 include (필요한 필드만 받아서 응답 크기를 줄임) */
+    default List<String> include() {
+        return List.of("documents", "metadatas");
+    }
+
+    void process(String collectionId, Page page) throws Exception;
+}
@@ -79,74 +79,42 @@ package ict.project.resume.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
-import java.util.*;
+import java.nio.file.Path;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BulkExcelIngestService {
 
-    private final Chunker chunker;
-    private final EmbeddingService embeddingService;
-    private final ChromaService chromaService;
+    private final BulkIngestPipeline pipeline;
 
     /** 기존 호환용 (maxLen 기본 1200) */
     public int ingest(InputStream excelStream, String sourceTag) throws Exception {
         return ingest(excelStream, sourceTag, 1200);
     }
 
-    /** 엑셀 → 청킹(maxLen) → 임베딩 → Chroma upsert */
+    /**
+     * 엑셀 → 청킹(maxLen) → 임베딩 → Chroma upsert
+     * 시트는 SAX 로 한 행씩 읽고, 청킹/임베딩/upsert 는 BulkIngestPipeline 의 단계별 워커가 배치로 처리
+     */
     public int ingest(InputStream excelStream, String sourceTag, int maxLen) throws Exception {
-        int totalChunks = 0;
-        try (Workbook wb = new XSSFWorkbook(excelStream)) {
-            Sheet sheet = wb.getSheetAt(0);
-            if (sheet == null) return 0;
-
-            final String collection = "resumes";
-
-            for (int r = 1; r <= sheet.getLastRowNum(); r++) {
-                Row row = sheet.getRow(r);
-                if (row == null) continue;
-
-                String essayId   = getString(row, 0); // A열: ID
-                String essayText = getString(row, 1); // B열: 본문
-                if (essayText == null || essayText.isBlank()) continue;
-
-                List<String> chunks = chunker.chunk(essayText, maxLen);
-
-                int idx = 0;
-
-                for (String ch : chunks) {
-                    List<Float> vec = embeddingService.embedAsList(ch);
-                    String id = (essayId == null || essayId.isBlank() ? ("row-" + r) : essayId) + ":" + (idx++);
-
-                    Map<String, Object> meta = new HashMap<>();
-                    meta.put("essay_id", essayId);
-                    meta.put("source", sourceTag);
-                    meta.put("chunk_len", ch.length());
-                    meta.put("row_index", r);
+        return run(sink -> XlsxRowReader.read(excelStream, sink), sourceTag, maxLen, null).chunks();
+    }
 
-                    chromaService.upsert(collection, id, ch, vec, meta);
-                    totalChunks++;
-                }
-                // 각 row 끝날 때마다 로그 출력
-                log.info("✅ Row {} processed -> {} chunks (cumulative total={})", r, chunks.size(), totalChunks);
-            }
-        }
-        log.info("Excel ingestion done. totalChunks={}, sourceTag={}, maxLen={}", totalChunks, sourceTag, maxLen);
-        return totalChunks;
+    /** 진행 상황 콜백/재개가 필요한 경우 (이미 저장된 파일 기준, IngestJobService 에서 사용) */
+    public BulkIngestPipeline.Result ingest(Path xlsx, String sourceTag, int maxLen,
+                                            BulkIngestPipeline.Listener listener) throws Exception {
+        return run(sink -> XlsxRowReader.read(xlsx, sink), sourceTag, maxLen, listener);
     }
 
-    private String getString(Row row, int colIdx) {
-        Cell cell = row.getCell(colIdx);
-        if (cell == null) return null;
-        cell.setCellType(CellType.STRING);
-        String s = cell.getStringCellValue();
-        return (s == null) ? null : s.trim();
+    private BulkIngestPipeline.Result run(BulkIngestPipeline.RowSource source, String sourceTag, int maxLen,
+                                          BulkIngestPipeline.Listener listener) throws Exception {
+        BulkIngestPipeline.Result result = pipeline.run(source, "resumes", sourceTag, maxLen, listener);
+        log.info("Excel ingestion done. rows={}, totalChunks={}, skipped={}, elapsedMs={}, sourceTag={}, maxLen={}",
+                result.rows(), result.chunks(), result.skippedChunks(), result.elapsedMs(), sourceTag, maxLen);
+        return result;
     }
 }
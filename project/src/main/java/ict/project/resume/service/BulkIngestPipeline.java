@@ -0,0 +1,350 @@
+package ict.project.resume.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 대량 적재 파이프라인: 읽기 → 청킹 → 배치 임베딩 → 배치 upsert
+ * - 단계 사이는 크기 제한 큐(ingest.queue-capacity) → 뒷단이 느리면 앞단이 대기 (메모리 상한 + back-pressure)
+ * - 임베딩/upsert 는 배치 크기와 동시 실행 수를 따로 설정:
+ *     ingest.chunk-workers=2
+ *     ingest.embed-batch-size=64        # /embeddings 1회당 청크 수
+ *     ingest.embed-concurrency=4        # 동시에 진행하는 임베딩 요청 수
+ *     ingest.upsert-batch-size=100      # Chroma /add 1회당 청크 수
+ *     ingest.upsert-concurrency=2
+ * - 처리량이 순차 지연(행마다 임베딩 → upsert 대기)이 아니라 허용된 업스트림 동시성에 비례
+ * - 한 단계라도 실패하면 나머지 단계를 멈추고 첫 예외를 그대로 던짐
+ */
+@Slf4j
+@Component
+public class BulkIngestPipeline {
+
+    /** 읽기 단계 입력: 행 단위로 sink 에 넘겨줌 (XlsxRowReader 등) */
+    @FunctionalInterface
+    public interface RowSource {
+        void read(XlsxRowReader.RowHandler sink) throws Exception;
+    }
+
+    /** 진행 상황 콜백 (워커 스레드에서 호출되므로 구현은 스레드 안전해야 함) */
+    public interface Listener {
+        default void rowRead(int rowIndex) {}
+
+        /** 재개(resume) 시 이미 적재된 청크는 임베딩/upsert 생략 */
+        default boolean alreadyStored(String chunkId) {
+            return false;
+        }
+
+        /** upsert 배치 1건 완료 (체크포인트 기록용) */
+        default void chunksStored(List<String> chunkIds) {}
+
+        /** 행의 모든 청크가 upsert 완료됨 (건너뛴 청크 제외한 개수) */
+        default void rowCompleted(int rowIndex, String essayId, int chunks) {}
+    }
+
+    public record Result(int rows, int chunks, int skippedChunks, long elapsedMs) {}
+
+    private record Row(int index, String essayId, String text) {}
+
+    private record Chunk(Row row, String id, String text, Map<String, Object> meta) {}
+
+    private record Embedded(Chunk chunk, float[] vector) {}
+
+    /** 행별 남은 청크 수 (0 이 되면 rowCompleted) */
+    private record Pending(AtomicInteger left, int total) {}
+
+    private final Chunker chunker;
+    private final EmbeddingService embeddingService;
+    private final ChromaService chromaService;
+    private final ObjectProvider<VectorStoreService> embeddedVectorStore; // vector.store.mode=embedded 일 때만 존재
+
+    @Value("${ingest.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${ingest.chunk-workers:2}")
+    private int chunkWorkers;
+
+    @Value("${ingest.embed-batch-size:64}")
+    private int embedBatchSize;
+
+    @Value("${ingest.embed-concurrency:4}")
+    private int embedConcurrency;
+
+    @Value("${ingest.upsert-batch-size:100}")
+    private int upsertBatchSize;
+
+    @Value("${ingest.upsert-concurrency:2}")
+    private int upsertConcurrency;
+
+    public BulkIngestPipeline(Chunker chunker,
+                              EmbeddingService embeddingService,
+                              ChromaService chromaService,
+                              ObjectProvider<VectorStoreService> embeddedVectorStore) {
+        this.chunker = chunker;
+        this.embeddingService = embeddingService;
+        this.chromaService = chromaService;
+        this.embeddedVectorStore = embeddedVectorStore;
+    }
+
+    public Result run(RowSource source, String collection, String sourceTag, int maxLen, Listener listener) throws Exception {
+        Listener events = listener != null ? listener : new Listener() {};
+        VectorStoreService embedded = embeddedVectorStore.getIfAvailable();
+        // Chroma v2 경로는 컬렉션 UUID 필요 (이름 → id 는 캐시됨)
+        String collectionId = (embedded == null) ? chromaService.ensureCollectionId(collection) : null;
+
+        Run run = new Run(queueCapacity);
+        long started = System.currentTimeMillis();
+
+        int chunkN = Math.max(1, chunkWorkers);
+        int embedN = Math.max(1, embedConcurrency);
+        int upsertN = Math.max(1, upsertConcurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(chunkN + embedN + upsertN, new StageThreads());
+        CountDownLatch chunkDone = new CountDownLatch(chunkN);
+        CountDownLatch embedDone = new CountDownLatch(embedN);
+        CountDownLatch upsertDone = new CountDownLatch(upsertN);
+
+        try {
+            for (int i = 0; i < chunkN; i++) {
+                workers.execute(() -> stage(run, chunkDone, () -> chunkLoop(run, sourceTag, maxLen, events)));
+            }
+            for (int i = 0; i < embedN; i++) {
+                workers.execute(() -> stage(run, embedDone, () -> embedLoop(run, chunkDone)));
+            }
+            for (int i = 0; i < upsertN; i++) {
+                workers.execute(() -> stage(run, upsertDone, () -> upsertLoop(run, embedDone, embedded, collection, collectionId, events)));
+            }
+
+            // 읽기 단계는 호출 스레드에서 (큐가 차면 여기서 대기)
+            try {
+                source.read((r, essayId, text) -> {
+                    if (text == null || text.isBlank()) {
+                        // 빈 행도 완료로 보고 → 진행률 분모(countRows: 모든 <row>)와 맞춤
+                        events.rowCompleted(r, essayId, 0);
+                        return;
+                    }
+                    run.put(run.rows, new Row(r, essayId, text));
+                    run.rowsRead.increment();
+                    events.rowRead(r);
+                });
+            } catch (Exception e) {
+                run.fail(e);
+            } finally {
+                run.readerDone = true;
+            }
+
+            upsertDone.await();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Exception error = run.failed.get();
+        if (error != null) throw error;
+
+        Result result = new Result(run.rowsRead.intValue(), run.chunksUpserted.intValue(),
+                run.chunksSkipped.intValue(), System.currentTimeMillis() - started);
+        log.info("Ingest pipeline done. rows={}, chunks={}, skipped={}, elapsedMs={}, sourceTag={}",
+                result.rows(), result.chunks(), result.skippedChunks(), result.elapsedMs(), sourceTag);
+        return result;
+    }
+
+    /* ===================== stages ===================== */
+
+    private void chunkLoop(Run run, String sourceTag, int maxLen, Listener events) throws Exception {
+        while (true) {
+            Row row = run.rows.poll(100, TimeUnit.MILLISECONDS);
+            if (row == null) {
+                if ((run.readerDone && run.rows.isEmpty()) || run.aborted()) return;
+                continue;
+            }
+            String base = (row.essayId() == null || row.essayId().isBlank()) ? ("row-" + row.index()) : row.essayId();
+            List<Chunk> todo = new ArrayList<>();
+            int[] seq = {0};
+            // 청크 리스트를 따로 만들지 않고 완성되는 대로 Chunk 로
+            chunker.forEachChunk(row.text(), maxLen, ch -> {
+                String id = base + ":" + seq[0]++;
+                if (events.alreadyStored(id)) {
+                    run.chunksSkipped.increment();
+                    return;
+                }
+                Map<String, Object> meta = new HashMap<>();
+                meta.put("essay_id", row.essayId());
+                meta.put("source", sourceTag);
+                meta.put("chunk_len", ch.length());
+                meta.put("row_index", row.index());
+                todo.add(new Chunk(row, id, ch, meta));
+            });
+            if (todo.isEmpty()) {
+                events.rowCompleted(row.index(), row.essayId(), 0);
+                continue;
+            }
+            // 다음 단계로 넘기기 전에 등록해야 upsert 쪽에서 먼저 끝나도 카운트가 맞음
+            run.pending.put(row.index(), new Pending(new AtomicInteger(todo.size()), todo.size()));
+            for (Chunk c : todo) run.put(run.chunks, c);
+        }
+    }
+
+    private void embedLoop(Run run, CountDownLatch chunkDone) throws Exception {
+        int batchSize = Math.max(1, embedBatchSize);
+        List<Chunk> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            if (!run.take(run.chunks, batch, batchSize, chunkDone)) return;
+
+            List<String> texts = new ArrayList<>(batch.size());
+            for (Chunk c : batch) texts.add(c.text());
+            List<float[]> vectors = embeddingService.embedAll(texts);
+
+            for (int i = 0; i < batch.size(); i++) {
+                run.put(run.vectors, new Embedded(batch.get(i), vectors.get(i)));
+            }
+        }
+    }
+
+    private void upsertLoop(Run run, CountDownLatch embedDone, VectorStoreService embedded,
+                            String collection, String collectionId, Listener events) throws Exception {
+        int batchSize = Math.max(1, upsertBatchSize);
+        List<Embedded> batch = new ArrayList<>(batchSize);
+        while (true) {
+            batch.clear();
+            if (!run.take(run.vectors, batch, batchSize, embedDone)) return;
+
+            List<String> stored = new ArrayList<>(batch.size());
+            if (embedded != null) {
+                for (Embedded e : batch) {
+                    embedded.upsert(collection, e.chunk().id(), e.vector(), e.chunk().meta(), e.chunk().text());
+                    stored.add(e.chunk().id());
+                }
+            } else {
+                // 같은 essayId 행이 여러 번 나오면 청크 id(essayId:i)가 겹침.
+                // Chroma 는 요청 안에 중복 id 가 있으면 /add 전체를 거부 → 첫 번째만 보내고 나머지는 건너뜀
+                // (예전 청크 단위 /add 에서 이미 있는 id 를 건너뛰던 것과 같은 결과)
+                Set<String> seen = new HashSet<>();
+                List<String> docs = new ArrayList<>(batch.size());
+                List<List<Float>> embeddings = new ArrayList<>(batch.size());
+                List<Map<String, Object>> metas = new ArrayList<>(batch.size());
+                for (Embedded e : batch) {
+                    if (!seen.add(e.chunk().id())) {
+                        run.chunksSkipped.increment();
+                        continue;
+                    }
+                    stored.add(e.chunk().id());
+                    docs.add(e.chunk().text());
+                    embeddings.add(EmbeddingService.toList(e.vector()));
+                    metas.add(e.chunk().meta());
+                }
+                chromaService.upsertBatch(collectionId, stored, docs, embeddings, metas);
+            }
+            run.chunksUpserted.add(stored.size());
+            events.chunksStored(stored);
+
+            for (Embedded e : batch) {
+                Row row = e.chunk().row();
+                Pending p = run.pending.get(row.index());
+                if (p != null && p.left().decrementAndGet() == 0) {
+                    run.pending.remove(row.index());
+                    events.rowCompleted(row.index(), row.essayId(), p.total());
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    private static void stage(Run run, CountDownLatch done, StageBody body) {
+        try {
+            body.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e);
+        } catch (Exception e) {
+            run.fail(e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /** 실행 1회분 상태 (큐/카운터/실패) */
+    private static final class Run {
+        final BlockingQueue<Row> rows;
+        final BlockingQueue<Chunk> chunks;
+        final BlockingQueue<Embedded> vectors;
+        final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+        final LongAdder rowsRead = new LongAdder();
+        final LongAdder chunksUpserted = new LongAdder();
+        final LongAdder chunksSkipped = new LongAdder();
+        final AtomicReference<Exception> failed = new AtomicReference<>();
+        volatile boolean readerDone;
+
+        Run(int capacity) {
+            int cap = Math.max(1, capacity);
+            rows = new ArrayBlockingQueue<>(cap);
+            chunks = new ArrayBlockingQueue<>(cap);
+            vectors = new ArrayBlockingQueue<>(cap);
+        }
+
+        boolean aborted() {
+            return failed.get() != null;
+        }
+
+        void fail(Exception e) {
+            if (failed.compareAndSet(null, e)) log.error("Ingest pipeline stage failed", e);
+        }
+
+        /** 큐가 차 있으면 대기, 다른 단계가 실패하면 중단 */
+        <T> void put(BlockingQueue<T> q, T item) throws Exception {
+            while (!q.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (aborted()) throw new IllegalStateException("ingest pipeline aborted");
+            }
+        }
+
+        /**
+         * 최소 1개를 기다렸다가 batchSize 까지 모아서 반환.
+         * 윗단계가 모두 끝났고 큐도 비었으면 false (= 이 단계 종료)
+         */
+        <T> boolean take(BlockingQueue<T> q, List<T> out, int batchSize, CountDownLatch upstream) throws InterruptedException {
+            while (true) {
+                if (aborted()) return false;
+                T first = q.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    out.add(first);
+                    q.drainTo(out, batchSize - 1);
+                    return true;
+                }
+                if (upstream.getCount() == 0 && q.isEmpty()) return false;
+            }
+        }
+    }
+
+    private static final class StageThreads implements ThreadFactory {
+        private final AtomicInteger seq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ingest-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
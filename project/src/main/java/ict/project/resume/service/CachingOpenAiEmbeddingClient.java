@@ -0,0 +1,246 @@
+package ict.project.resume.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OpenAiEmbeddingClientHttp 앞단의 내용 주소(content-addressed) 임베딩 캐시.
+ * - 키: (model, SHA-256(정규화 텍스트))
+ * - 1차: 힙 LRU (float[] 바이트 합 기준 용량 제한)
+ * - 2차: 디스크(옵션, openai.embeddings.cache.dir 지정 시) → 재시작 후에도 유지
+ * 반환되는 float[]는 캐시와 공유되므로 호출 측에서 수정하지 않는다.
+ */
+@Slf4j
+@Primary
+@Service
+public class CachingOpenAiEmbeddingClient implements OpenAiEmbeddingClient {
+
+    private final OpenAiEmbeddingClientHttp delegate;
+    private final String defaultModel;
+    private final long maxBytes;
+    private final Path diskDir;
+
+    /** access-order LRU. 접근은 모두 synchronized(memory) */
+    private final LinkedHashMap<String, float[]> memory = new LinkedHashMap<>(1024, 0.75f, true);
+    private long memoryBytes = 0;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingOpenAiEmbeddingClient(
+            OpenAiEmbeddingClientHttp delegate,
+            @Value("${openai.embeddings.model:text-embedding-3-small}") String defaultModel,
+            @Value("${openai.embeddings.cache.max-bytes:134217728}") long maxBytes,
+            @Value("${openai.embeddings.cache.dir:}") String diskDir
+    ) {
+        this.delegate = delegate;
+        this.defaultModel = defaultModel;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.diskDir = (diskDir == null || diskDir.isBlank()) ? null : Paths.get(diskDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public List<float[]> embed(String modelOverride, List<String> inputs) {
+        String useModel = (modelOverride != null && !modelOverride.isBlank()) ? modelOverride : defaultModel;
+        int n = inputs.size();
+        float[][] out = new float[n][];
+
+        // 캐시 미스만 모아서 한 번에 요청 (같은 배치 안의 중복 텍스트는 1회만 전송)
+        Map<String, List<Integer>> missSlots = new LinkedHashMap<>();
+        List<String> missInputs = new ArrayList<>();
+        String[] keys = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            String key = key(useModel, inputs.get(i));
+            keys[i] = key;
+            float[] hit = lookup(key);
+            if (hit != null) {
+                out[i] = hit;
+                continue;
+            }
+            List<Integer> slots = missSlots.get(key);
+            if (slots == null) {
+                slots = new ArrayList<>(1);
+                missSlots.put(key, slots);
+                missInputs.add(inputs.get(i));
+            }
+            slots.add(i);
+        }
+
+        if (!missInputs.isEmpty()) {
+            misses.add(missInputs.size());
+            List<float[]> fetched = delegate.embed(useModel, missInputs);
+            if (fetched == null || fetched.size() != missInputs.size()) {
+                throw new IllegalStateException("embedding count mismatch: expected=" + missInputs.size()
+                        + ", actual=" + (fetched == null ? 0 : fetched.size()));
+            }
+            int j = 0;
+            for (Map.Entry<String, List<Integer>> e : missSlots.entrySet()) {
+                float[] vec = fetched.get(j++);
+                store(e.getKey(), vec);
+                for (int slot : e.getValue()) out[slot] = vec;
+            }
+        }
+
+        List<float[]> result = new ArrayList<>(n);
+        for (float[] v : out) result.add(v);
+        return result;
+    }
+
+    /** 캐시 통계 (관리/모니터링용) */
+    public Map<String, Object> stats() {
+        long mem = memoryHits.sum();
+        long disk = diskHits.sum();
+        long miss = misses.sum();
+        long total = mem + disk + miss;
+        Map<String, Object> m = new LinkedHashMap<>();
+        synchronized (memory) {
+            m.put("entries", memory.size());
+            m.put("bytes", memoryBytes);
+        }
+        m.put("maxBytes", maxBytes);
+        m.put("memoryHits", mem);
+        m.put("diskHits", disk);
+        m.put("misses", miss);
+        m.put("evictions", evictions.sum());
+        m.put("hitRatio", total == 0 ? 0.0 : (double) (mem + disk) / total);
+        m.put("diskTier", diskDir != null ? diskDir.toString() : "disabled");
+        return m;
+    }
+
+    /* ===================== tiers ===================== */
+
+    private float[] lookup(String key) {
+        synchronized (memory) {
+            float[] v = memory.get(key);
+            if (v != null) {
+                memoryHits.increment();
+                return v;
+            }
+        }
+        float[] fromDisk = readDisk(key);
+        if (fromDisk != null) {
+            diskHits.increment();
+            putMemory(key, fromDisk);
+        }
+        return fromDisk;
+    }
+
+    private void store(String key, float[] vec) {
+        if (vec == null || vec.length == 0) return;
+        putMemory(key, vec);
+        writeDisk(key, vec);
+    }
+
+    private void putMemory(String key, float[] vec) {
+        long size = sizeOf(vec);
+        if (size > maxBytes) return;
+        synchronized (memory) {
+            float[] prev = memory.put(key, vec);
+            if (prev != null) memoryBytes -= sizeOf(prev);
+            memoryBytes += size;
+
+            Iterator<Map.Entry<String, float[]>> it = memory.entrySet().iterator();
+            while (memoryBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, float[]> eldest = it.next();
+                memoryBytes -= sizeOf(eldest.getValue());
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private float[] readDisk(String key) {
+        if (diskDir == null) return null;
+        Path file = diskPath(key);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            int dim = buf.getInt();
+            if (dim <= 0 || buf.remaining() != dim * Float.BYTES) {
+                log.warn("embedding cache file corrupted, ignore: {}", file);
+                return null;
+            }
+            float[] vec = new float[dim];
+            buf.asFloatBuffer().get(vec);
+            return vec;
+        } catch (IOException e) {
+            log.warn("embedding cache read failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, float[] vec) {
+        if (diskDir == null) return;
+        Path file = diskPath(key);
+        try {
+            Files.createDirectories(file.getParent());
+            ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + vec.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(vec.length);
+            buf.asFloatBuffer().put(vec);
+            // 임시 파일에 쓴 뒤 rename → 읽는 쪽이 반쯤 쓰인 파일을 보지 않음
+            Path tmp = Files.createTempFile(file.getParent(), "emb-", ".tmp");
+            Files.write(tmp, buf.array());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("embedding cache write failed: {}", e.getMessage());
+        }
+    }
+
+    /** {dir}/{model}/{sha 앞 2자리}/{sha}.f32 */
+    private Path diskPath(String key) {
+        int sep = key.lastIndexOf(':');
+        String model = key.substring(0, sep).replaceAll("[^A-Za-z0-9._-]", "_");
+        String sha = key.substring(sep + 1);
+        return diskDir.resolve(model).resolve(sha.substring(0, 2)).resolve(sha + ".f32");
+    }
+
+    /* ===================== key ===================== */
+
+    static String key(String model, String text) {
+        return model + ":" + sha256Hex(normalize(text));
+    }
+
+    /** 같은 내용이 줄바꿈/유니코드 조합 차이로 다른 키가 되지 않도록 정규화 */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String s = Normalizer.normalize(text, Normalizer.Form.NFC);
+        return s.replace("\r\n", "\n").replace('\r', '\n').strip();
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long sizeOf(float[] v) {
+        return (long) v.length * Float.BYTES + 16; // 배열 헤더 대략치 포함
+    }
+}
@@ -0,0 +1,58 @@
+package ict.project.resume.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Chroma 컬렉션 이름 → UUID 캐시 (ChromaService / ChromaVectorStoreService / Backfill 공용)
+ * - 같은 이름에 대한 최초 조회가 동시에 들어오면 HTTP 요청은 1번만 나가고 나머지는 그 결과를 기다림
+ * - 조회 실패는 캐시하지 않음 (다음 호출에서 다시 시도)
+ * - 컬렉션이 삭제/재생성되면 호출 측에서 404를 보고 invalidate
+ */
+@Slf4j
+@Component
+public class ChromaCollectionCache {
+
+    private final Map<String, CompletableFuture<String>> ids = new ConcurrentHashMap<>();
+
+    /** 캐시에 있으면 바로 반환, 없으면 loader 로 조회 (동시 요청은 하나로 합침) */
+    public String resolve(String name, Supplier<CompletableFuture<String>> loader) {
+        try {
+            return resolveAsync(name, loader).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("collection id resolve failed: " + name, cause);
+        }
+    }
+
+    /** 논블로킹 버전 (ReactiveChromaService 용) */
+    public CompletableFuture<String> resolveAsync(String name, Supplier<CompletableFuture<String>> loader) {
+        CompletableFuture<String> f = ids.computeIfAbsent(name, n -> loader.get());
+        // 실패한 조회는 제거 → 다음 호출이 새로 조회 (computeIfAbsent 밖에서 등록해야 재진입 수정이 안 생김)
+        f.whenComplete((id, err) -> {
+            if (err != null || id == null) ids.remove(name, f);
+        });
+        return f;
+    }
+
+    /** 캐시된 id 가 있으면 반환 (조회하지 않음) */
+    public String peek(String name) {
+        CompletableFuture<String> f = ids.get(name);
+        return (f != null && f.isDone() && !f.isCompletedExceptionally()) ? f.getNow(null) : null;
+    }
+
+    public void invalidate(String name) {
+        if (ids.remove(name) != null) log.info("chroma collection id invalidated: {}", name);
+    }
+
+    public void clear() {
+        ids.clear();
+    }
+}
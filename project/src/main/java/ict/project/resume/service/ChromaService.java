@@ -1,32 +1,22 @@
 package ict.project.resume.service;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpStatusCode;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
-import java.util.Collections;
+
 import java.util.List;
 import java.util.Map;
 
-@Slf4j
+/**
+ * 블로킹 호출부용 Chroma 어댑터.
+ * 실제 HTTP 호출은 ReactiveChromaService 가 담당하고 여기서는 .block() 만 한다.
+ * 새 코드에서 여러 벡터 작업을 동시에 돌릴 때는 ReactiveChromaService 를 직접 사용.
+ */
 @Service
 public class ChromaService {
 
-    private final WebClient chroma;
-
-    @Value("${chroma.tenant:default_tenant}")
-    private String tenant;
-
-    @Value("${chroma.database:default_db}")
-    private String database;
+    private final ReactiveChromaService reactive;
 
-    public ChromaService(@Qualifier("chromaWebClient") WebClient chroma) {
-        this.chroma = chroma;
+    public ChromaService(ReactiveChromaService reactive) {
+        this.reactive = reactive;
     }
 
     /* =======================
@@ -35,18 +25,7 @@ public class ChromaService {
 
     /** 컬렉션 정보 조회 (404면 존재하지 않음) */
     public Map<String, Object> getCollectionInfo(String collectionId) {
-        return chroma.get()
-                .uri("/tenants/{t}/databases/{d}/collections/{cid}", tenant, database, collectionId)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp ->
-                        resp.bodyToMono(String.class).map(body -> {
-                            log.warn("get collection info error {} body={}", resp.statusCode(), body);
-                            return new RuntimeException("get collection " + resp.statusCode() + ": " + body);
-                        })
-                )
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return reactive.getCollectionInfo(collectionId).block();
     }
 
     /* =======================
@@ -63,28 +42,7 @@ public class ChromaService {
                        String document,
                        List<Float> embedding,
                        Map<String, Object> metadata) {
-
-        Map<String, Object> payload = Map.of(
-                "ids", Collections.singletonList(id),
-                "documents", Collections.singletonList(document),
-                "metadatas", Collections.singletonList(metadata == null ? Map.of() : metadata),
-                "embeddings", Collections.singletonList(embedding == null ? List.of() : embedding)
-        );
-
-        chroma.post()
-                .uri("/tenants/{t}/databases/{d}/collections/{cid}/add", tenant, database, collectionId)
-                .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp ->
-                        resp.bodyToMono(String.class).map(body -> {
-                            log.error("Chroma add error {} body={}", resp.statusCode(), body);
-                            return new RuntimeException("Chroma add failed: " + body);
-                        })
-                )
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        reactive.upsert(collectionId, id, document, embedding, metadata).block();
     }
 
     public void upsertBatch(String collectionId,
@@ -92,131 +50,55 @@ public class ChromaService {
                             List<String> documents,
                             List<List<Float>> embeddings,
                             List<Map<String, Object>> metadatas) {
-
-        Map<String, Object> payload = Map.of(
-                "ids", ids,
-                "documents", documents,
-                "metadatas", metadatas,
-                "embeddings", embeddings
-        );
-
-        chroma.post()
-                .uri("/tenants/{t}/databases/{d}/collections/{cid}/add", tenant, database, collectionId)
-                .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        reactive.upsertBatch(collectionId, ids, documents, embeddings, metadatas).block();
     }
 
+    /** 같은 id 가 있으면 교체 (/upsert) */
+    public void replaceBatch(String collectionId,
+                             List<String> ids,
+                             List<String> documents,
+                             List<List<Float>> embeddings,
+                             List<Map<String, Object>> metadatas) {
+        reactive.replaceBatch(collectionId, ids, documents, embeddings, metadatas).block();
+    }
 
     /* =======================
      * Read (get by page)
      * ======================= */
 
-    /**
-     * 페이지네이션 조회
-     * - where / where_document는 필요할 때만 보냄 (빈 객체 금지)
-     */
+    /** 페이지네이션 조회 */
     public Map<String, Object> getByPage(String collectionId, int limit, int offset) {
-        Map<String, Object> payload = Map.of(
-                "limit", limit,
-                "offset", offset,
-                "include", List.of("documents", "metadatas", "distances")
-        );
+        return reactive.getByPage(collectionId, limit, offset).block();
+    }
 
-        return chroma.post()
-                .uri("/tenants/{t}/databases/{d}/collections/{cid}/get", tenant, database, collectionId)
-                .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp ->
-                        resp.bodyToMono(String.class).map(body -> {
-                            log.error("Chroma GET error {} body={}", resp.statusCode(), body);
-                            return new RuntimeException("Chroma get failed: " + body);
-                        })
-                )
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+    /** 컬렉션 레코드 수 */
+    public int count(String collectionId) {
+        Integer n = reactive.count(collectionId).block();
+        return n == null ? 0 : n;
     }
 
     /* =======================
      * Query
      * ======================= */
 
-    /**
-     * 코사인 기반 유사도 질의
-     */
+    /** 코사인 기반 유사도 질의 */
     public Map<String, Object> query(String collectionId, List<Float> queryEmbedding, int topK) {
-        Map<String, Object> payload = Map.of(
-                "query_embeddings", List.of(queryEmbedding == null ? List.of() : queryEmbedding),
-                "n_results", topK,
-                "include", List.of("documents", "metadatas", "distances")
-        );
-
-        return chroma.post()
-                .uri("/tenants/{t}/databases/{d}/collections/{cid}/query", tenant, database, collectionId)
-                .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
-                .bodyValue(payload)
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp ->
-                        resp.bodyToMono(String.class).map(body -> {
-                            log.error("Chroma query error {} body={}", resp.statusCode(), body);
-                            return new RuntimeException("Chroma query failed: " + body);
-                        })
-                )
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return reactive.query(collectionId, queryEmbedding, topK).block();
     }
-    // ChromaService.java 에 추가
-// 상단 import에 추가
 
-    /** 컬렉션 이름으로 조회 후 query 실행 (없으면 생성) */
+    /** 컬렉션 이름으로 조회 후 query 실행 (없으면 생성, 캐시된 id 가 404면 1회 재시도) */
     public Map<String, Object> queryByName(String collectionName, List<Float> queryEmbedding, int topK) {
-        String cid = ensureCollectionId(collectionName);
-        return query(cid, queryEmbedding, topK);
+        return reactive.queryByName(collectionName, queryEmbedding, topK).block();
     }
 
-    /** 컬렉션 이름으로 id 확보 (없으면 생성) */
+    /** 컬렉션 이름으로 id 확보 (없으면 생성). 결과는 ChromaCollectionCache 에 보관 */
     public String ensureCollectionId(String collectionName) {
-        // 1) 이름으로 get
-        String id = chroma.post()
-                .uri("/tenants/{t}/databases/{d}/collections/get", tenant, database)
-                .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
-                .bodyValue(Map.of("name", collectionName))
-                .exchangeToMono(resp -> {
-                    if (resp.statusCode().is2xxSuccessful()) {
-                        return resp.bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                                .map(map -> (String) map.get("id"));
-                    } else if (resp.statusCode().value() == 404) {
-                        return Mono.just(null); // 없으면 null
-                    } else {
-                        return resp.bodyToMono(String.class)
-                                .flatMap(body -> Mono.error(new RuntimeException("get collection by name failed: " + body)));
-                    }
-                })
-                .block();
-
-        if (id != null) return id;
-
-        // 2) 없으면 생성
-        Map<String, Object> created = chroma.post()
-                .uri("/tenants/{t}/databases/{d}/collections", tenant, database)
-                .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
-                .bodyValue(Map.of("name", collectionName))
-                .retrieve()
-                .onStatus(HttpStatusCode::isError, resp ->
-                        resp.bodyToMono(String.class).map(body -> new RuntimeException("create collection failed: " + body))
-                )
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return reactive.ensureCollectionId(collectionName).block();
+    }
 
-        return (String) created.get("id");
+    /** 캐시된 id 무효화 (컬렉션 삭제/재생성 후 404를 받은 경우 등) */
+    public void invalidateCollectionId(String collectionName) {
+        reactive.invalidateCollectionId(collectionName);
     }
 
 }
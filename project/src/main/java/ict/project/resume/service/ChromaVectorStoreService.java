@@ -1,15 +1,11 @@
 package ict.project.resume.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 @Slf4j
@@ -19,61 +15,53 @@ public class ChromaVectorStoreService {
     /** 컨트롤러에서 import 해서 쓰는 중첩 타입 */
     public static record SearchHit(String id, String text, double distance) {}
 
-    private final WebClient chroma;
+    private final ReactiveChromaService chroma;
 
-    // 👇 명시적 생성자 + Qualifier 로 어떤 빈을 쓸지 확정
-    public ChromaVectorStoreService(@Qualifier("chromaWebClient") WebClient chroma) {
+    public ChromaVectorStoreService(ReactiveChromaService chroma) {
         this.chroma = chroma;
     }
 
-    /** 컬렉션에서 임베딩으로 topK 검색 */
+    /** 컬렉션에서 임베딩으로 topK 검색 (블로킹 호출부용) */
     public List<SearchHit> search(String collection, List<Float> embedding, int topK) {
-        try {
-            Map<String, Object> payload = Map.of(
-                    "query_embeddings", List.of(embedding),
-                    "n", topK,
-                    "include", List.of("ids", "documents", "distances")
-            );
+        List<SearchHit> hits = searchMono(collection, embedding, topK).block();
+        return hits == null ? List.of() : hits;
+    }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> body = chroma.post()
-                    .uri("/api/v1/collections/{name}/query", collection)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .bodyValue(payload)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .onErrorResume(e -> {
-                        log.error("Chroma query failed", e);
-                        return Mono.just(Map.of());
-                    })
-                    .block();
+    /**
+     * 논블로킹 검색 (v2 API, 컬렉션 id 는 ChromaCollectionCache 사용)
+     * - 실패 시 빈 리스트 (RAG 는 코퍼스 없이도 진행 가능)
+     */
+    public Mono<List<SearchHit>> searchMono(String collection, List<Float> embedding, int topK) {
+        return chroma.queryByName(collection, embedding, topK)
+                .map(ChromaVectorStoreService::toHits)
+                .defaultIfEmpty(List.of())
+                .onErrorResume(e -> {
+                    log.error("Chroma search error", e);
+                    return Mono.just(List.of());
+                });
+    }
 
-            List<SearchHit> out = new ArrayList<>();
-            if (body == null) return out;
+    private static List<SearchHit> toHits(Map<String, Object> body) {
+        List<SearchHit> out = new ArrayList<>();
 
-            List<List<String>> ids = as2DStringList(body.get("ids"));
-            List<List<String>> docs = as2DStringList(body.get("documents"));
-            List<List<Double>> dists = as2DDoubleList(body.get("distances"));
+        List<List<String>> ids = as2DStringList(body.get("ids"));
+        List<List<String>> docs = as2DStringList(body.get("documents"));
+        List<List<Double>> dists = as2DDoubleList(body.get("distances"));
 
-            if (!ids.isEmpty()) {
-                List<String> rowIds = ids.get(0);
-                List<String> rowDocs = (!docs.isEmpty() ? docs.get(0) : List.of());
-                List<Double> rowDists = (!dists.isEmpty() ? dists.get(0) : List.of());
+        if (!ids.isEmpty()) {
+            List<String> rowIds = ids.get(0);
+            List<String> rowDocs = (!docs.isEmpty() ? docs.get(0) : List.of());
+            List<Double> rowDists = (!dists.isEmpty() ? dists.get(0) : List.of());
 
-                int n = rowIds.size();
-                for (int i = 0; i < n; i++) {
-                    String id = safeGet(rowIds, i, "");
-                    String text = safeGet(rowDocs, i, "");
-                    double dist = safeGet(rowDists, i, Double.MAX_VALUE);
-                    out.add(new SearchHit(id, text, dist));
-                }
+            int n = rowIds.size();
+            for (int i = 0; i < n; i++) {
+                String id = safeGet(rowIds, i, "");
+                String text = safeGet(rowDocs, i, "");
+                double dist = toDouble(safeGet(rowDists, i, null));
+                out.add(new SearchHit(id, text, dist));
             }
-            return out;
-        } catch (Exception e) {
-            log.error("Chroma search error", e);
-            return List.of();
         }
+        return out;
     }
 
     // -------- helpers --------
@@ -89,6 +77,11 @@ public class ChromaVectorStoreService {
         return List.of();
     }
 
+    /** JSON 숫자는 Integer/Double 어느 쪽으로든 올 수 있음 */
+    private static double toDouble(Object v) {
+        return (v instanceof Number n) ? n.doubleValue() : Double.MAX_VALUE;
+    }
+
     private static <T> T safeGet(List<T> list, int idx, T def) {
         return (list != null && idx >= 0 && idx < list.size()) ? list.get(idx) : def;
     }
@@ -1,32 +1,40 @@
 package ict.project.resume.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.function.Consumer;
 
 /**
- * 긴 텍스트를 문장 경계 기준으로 모아서 maxLen 이하의 청크들로 만드는 유틸.
- * - 한국어/영어 문장 경계: BreakIterator 사용
- * - 한 문장이 maxLen을 초과하면 hard split
+ * 긴 텍스트를 문장 경계 기준으로 모아서 maxLen 이하의 청크들로 만드는 유틸 (인제스트 경로).
+ * - 분할 자체는 ChunkingEngine (RagService 와 같은 규칙)
+ * - 토큰 상한/겹침은 ingest.chunk-max-tokens / ingest.chunk-overlap-tokens (기본 0 = 문자 상한만, 겹침 없음)
+ * - 기본 설정에서는 예전과 같은 청크(공백으로 문장 연결, 긴 문장은 maxLen 마다 그대로 자름)를 만들어
+ *   essayId:i 청크 id 가 가리키는 본문이 바뀌지 않음 (Chroma /add 는 같은 id 를 건너뛰므로)
+ * - 토큰 상한/겹침을 켜면 청크 경계와 본문이 달라지므로 해당 컬렉션은 다시 적재해야 함
  */
 @Service
 public class Chunker {
 
+    private final ChunkingEngine engine;
+
+    @Value("${ingest.chunk-max-tokens:0}")
+    private int maxTokens;
+
+    @Value("${ingest.chunk-overlap-tokens:0}")
+    private int overlapTokens;
+
+    public Chunker(ChunkingEngine engine) {
+        this.engine = engine;
+    }
+
     /** 문장 리스트로만 받고 싶을 때 사용(옵션) */
     public List<String> splitIntoSentences(String text) {
         List<String> sents = new ArrayList<>();
         if (text == null || text.isBlank()) return sents;
-
-        BreakIterator bi = BreakIterator.getSentenceInstance(Locale.KOREAN);
-        bi.setText(text);
-        int start = bi.first();
-        for (int end = bi.next(); end != BreakIterator.DONE; start = end, end = bi.next()) {
-            String sentence = text.substring(start, end).trim();
-            if (!sentence.isEmpty()) sents.add(sentence);
-        }
+        engine.sentences(text, sents::add);
         return sents;
     }
 
@@ -35,53 +43,20 @@ public class Chunker {
      */
     public List<String> chunk(String text, int maxLen) {
         List<String> out = new ArrayList<>();
-        if (text == null || text.isBlank()) return out;
-
-        if (maxLen <= 0) {
-            out.add(text.trim());
-            return out;
-        }
-
-        List<String> sentences = splitIntoSentences(text);
-        if (sentences.isEmpty()) {
-            // 문장 경계 못 찾으면 통으로 자르기
-            hardSplit(text.trim(), maxLen, out);
-            return out;
-        }
-
-        StringBuilder buf = new StringBuilder();
-        for (String sent : sentences) {
-            if (sent.length() > maxLen) {
-                // 현재 버퍼를 먼저 내보내고, 긴 문장은 강제 분할
-                if (buf.length() > 0) {
-                    out.add(buf.toString());
-                    buf.setLength(0);
-                }
-                hardSplit(sent, maxLen, out);
-                continue;
-            }
-
-            if (buf.length() == 0) {
-                buf.append(sent);
-            } else if (buf.length() + 1 + sent.length() <= maxLen) {
-                buf.append(' ').append(sent);
-            } else {
-                out.add(buf.toString());
-                buf.setLength(0);
-                buf.append(sent);
-            }
-        }
-        if (buf.length() > 0) out.add(buf.toString());
+        forEachChunk(text, maxLen, out::add);
         return out;
     }
 
-    /** 한 문장이 maxLen을 넘는 경우 강제 슬라이스 */
-    private void hardSplit(String s, int maxLen, List<String> out) {
-        int i = 0, n = s.length();
-        while (i < n) {
-            int end = Math.min(n, i + maxLen);
-            out.add(s.substring(i, end));
-            i = end;
+    /** chunk() 와 같지만 리스트 없이 청크가 완성될 때마다 sink 로 */
+    public void forEachChunk(CharSequence text, int maxLen, Consumer<String> sink) {
+        if (text == null || text.isEmpty()) return;
+
+        if (maxLen <= 0 && maxTokens <= 0) {
+            String whole = text.toString().trim();
+            if (!whole.isEmpty()) sink.accept(whole);
+            return;
         }
+        boolean legacy = maxTokens <= 0 && overlapTokens <= 0;
+        engine.stream(text, new ChunkingEngine.Options(maxLen, maxTokens, overlapTokens, legacy), sink);
     }
 }
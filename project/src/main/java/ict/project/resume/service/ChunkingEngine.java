@@ -0,0 +1,324 @@
+package ict.project.resume.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.text.BreakIterator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * 문장 경계 청크 분할 엔진 (Chunker, RagService 공용)
+ * - 문장(BreakIterator, 한국어 규칙)을 순서대로 모아 maxChars / maxTokens 이하의 청크로 패킹
+ * - 앞 청크의 끝 문장들을 overlapTokens 이내로 다음 청크 앞에 반복 (청크 경계에서 문맥이 끊기지 않게)
+ * - 한 문장이 상한을 넘으면 공백 경계에서 강제 분할
+ * - 줄바꿈은 LF 로 통일 (CR 제거)
+ * - 문장 리스트를 만들지 않고 청크가 완성될 때마다 sink 로 넘김
+ *   (String 은 그대로 순회, 그 외 CharSequence / Reader 는 WINDOW_CHARS 씩 읽으며 미완 문장만 다음 창으로 넘김)
+ * - BreakIterator 는 스레드별로 재사용
+ */
+@Component
+public class ChunkingEngine {
+
+    /**
+     * 청크 상한 (0 이하면 해당 상한 없음). 토큰은 TokenCounter(채팅 모델 인코딩) 기준
+     * - legacyLayout: 예전 Chunker 와 같은 결과 (문장은 항상 공백으로 잇고, 긴 문장은 maxChars 마다 그대로 자름)
+     *   → 같은 입력이면 청크 개수/본문이 예전과 같아서 essayId:i 로 이미 적재된 청크와 어긋나지 않음
+     */
+    public record Options(int maxChars, int maxTokens, int overlapTokens, boolean legacyLayout) {
+        public Options(int maxChars, int maxTokens, int overlapTokens) {
+            this(maxChars, maxTokens, overlapTokens, false);
+        }
+
+        public static Options chars(int maxChars) {
+            return new Options(maxChars, 0, 0);
+        }
+    }
+
+    /** 스트리밍 시 한 번에 문장 분석하는 문자 수 */
+    static final int WINDOW_CHARS = 16 * 1024;
+
+    private static final BreakIterator PROTOTYPE = BreakIterator.getSentenceInstance(Locale.KOREAN);
+
+    /** 스레드별 BreakIterator (사용 중에는 비워 둬서 sink 안에서 다시 호출돼도 겹치지 않음) */
+    private final ThreadLocal<BreakIterator> iterators = new ThreadLocal<>();
+
+    private final TokenCounter tokenCounter;
+
+    public ChunkingEngine(TokenCounter tokenCounter) {
+        this.tokenCounter = tokenCounter;
+    }
+
+    /** 청크를 리스트로 (짧은 텍스트용) */
+    public List<String> chunk(CharSequence text, Options options) {
+        List<String> out = new ArrayList<>();
+        stream(text, options, out::add);
+        return out;
+    }
+
+    public void stream(CharSequence text, Options options, Consumer<String> sink) {
+        if (text == null || text.isEmpty()) return;
+        Packer packer = new Packer(options, sink);
+        if (text instanceof String s) {
+            withIterator(bi -> scan(bi, s, true, false, packer));
+        } else {
+            try {
+                scanWindows(reader(text), packer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // CharSequence 읽기에서는 발생하지 않음
+            }
+        }
+        packer.finish();
+    }
+
+    public void stream(Reader reader, Options options, Consumer<String> sink) throws IOException {
+        if (reader == null) return;
+        Packer packer = new Packer(options, sink);
+        scanWindows(reader, packer);
+        packer.finish();
+    }
+
+    /** 문장 단위로만 (trim, 빈 문장 제외) */
+    public void sentences(CharSequence text, Consumer<String> sink) {
+        if (text == null || text.isEmpty()) return;
+        SentenceSink s = (sentence, newlineBefore) -> sink.accept(sentence);
+        if (text instanceof String str) {
+            withIterator(bi -> scan(bi, str, true, false, s));
+        } else {
+            try {
+                scanWindows(reader(text), s);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /* ===================== 문장 분석 ===================== */
+
+    private interface SentenceSink {
+        void sentence(String sentence, boolean newlineBefore);
+    }
+
+    private interface IteratorTask {
+        int run(BreakIterator bi) throws IOException;
+    }
+
+    private void scanWindows(Reader reader, SentenceSink sink) throws IOException {
+        withIteratorIo(bi -> {
+            StringBuilder buf = new StringBuilder(WINDOW_CHARS + 1024);
+            char[] cbuf = new char[4096];
+            boolean eof = false;
+            boolean newlineAtStart = false; // 넘겨받은 미완 문장 앞(이전 창)에 줄바꿈이 있었는지
+            while (!eof) {
+                while (buf.length() < WINDOW_CHARS) {
+                    int n = reader.read(cbuf);
+                    if (n < 0) {
+                        eof = true;
+                        break;
+                    }
+                    buf.append(cbuf, 0, n);
+                }
+                if (buf.isEmpty()) break;
+                String window = buf.toString();
+                int used = scan(bi, window, eof, newlineAtStart, sink);
+                if (used == 0 && !eof) {
+                    // 창 전체가 한 문장 → 그대로 넘김 (상한을 넘으면 Packer 가 강제 분할)
+                    emitSentence(window, 0, window.length(), newlineAtStart, sink);
+                    used = window.length();
+                }
+                if (used > 0) newlineAtStart = newlineBefore(window, used, false);
+                buf.delete(0, used);
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * window 안의 문장들을 sink 로
+     * - last 가 아니면 끝 문장은 다음 창에서 이어질 수 있으므로 남김
+     * @return 처리한 문자 수
+     */
+    private int scan(BreakIterator bi, String window, boolean last, boolean newlineAtStart, SentenceSink sink) {
+        bi.setText(window);
+        int start = bi.first();
+        int end = bi.next();
+        while (end != BreakIterator.DONE) {
+            int next = bi.next();
+            if (next == BreakIterator.DONE && !last) break;
+            emitSentence(window, start, end, newlineAtStart, sink);
+            start = end;
+            end = next;
+        }
+        return last ? window.length() : start;
+    }
+
+    /** [start, end) 를 trim 해서 넘김. 앞 문장 뒤 공백에 줄바꿈이 있었는지도 함께 */
+    private static void emitSentence(String text, int start, int end, boolean newlineAtStart, SentenceSink sink) {
+        String s = text.substring(start, end).trim();
+        if (!s.isEmpty()) sink.sentence(s, newlineBefore(text, start, newlineAtStart));
+    }
+
+    /** start 바로 앞 공백에 줄바꿈이 있는지 (텍스트 맨 앞까지 공백이면 newlineAtStart) */
+    private static boolean newlineBefore(String text, int start, boolean newlineAtStart) {
+        int i = start - 1;
+        for (; i >= 0 && Character.isWhitespace(text.charAt(i)); i--) {
+            if (text.charAt(i) == '\n') return true;
+        }
+        return i < 0 && newlineAtStart;
+    }
+
+    private void withIterator(ToIntFunction<BreakIterator> task) {
+        try {
+            withIteratorIo(task::applyAsInt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void withIteratorIo(IteratorTask task) throws IOException {
+        BreakIterator bi = iterators.get();
+        if (bi == null) {
+            bi = (BreakIterator) PROTOTYPE.clone();
+        } else {
+            iterators.remove();
+        }
+        try {
+            task.run(bi);
+        } finally {
+            iterators.set(bi);
+        }
+    }
+
+    private static Reader reader(CharSequence cs) {
+        return new Reader() {
+            private int pos;
+
+            @Override
+            public int read(char[] b, int off, int len) {
+                if (pos >= cs.length()) return -1;
+                int n = Math.min(len, cs.length() - pos);
+                for (int i = 0; i < n; i++) b[off + i] = cs.charAt(pos + i);
+                pos += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /* ===================== 패킹 ===================== */
+
+    private record Sentence(String text, int tokens, boolean newlineBefore) {}
+
+    /** 문장을 받아 상한 이하로 묶어 sink 로 (현재 청크 문장만 보관) */
+    private final class Packer implements SentenceSink {
+
+        private final Options opt;
+        private final Consumer<String> sink;
+        private final boolean countTokens;
+        private final ArrayDeque<Sentence> current = new ArrayDeque<>();
+        private int chars;
+        private int tokens;
+        /** 마지막으로 내보낸 뒤 새로 들어온 문장 수 (0 이면 overlap 만 남은 상태) */
+        private int fresh;
+
+        Packer(Options opt, Consumer<String> sink) {
+            this.opt = opt;
+            this.sink = sink;
+            this.countTokens = opt.maxTokens() > 0 || opt.overlapTokens() > 0;
+        }
+
+        @Override
+        public void sentence(String s, boolean newlineBefore) {
+            // 문장 안 CRLF (줄 끝에 마침표가 없으면 한 문장으로 이어짐) → LF. legacyLayout 은 예전처럼 그대로
+            if (!opt.legacyLayout() && s.indexOf('\r') >= 0) s = s.replace("\r", "");
+            int t = countTokens ? tokenCounter.count(s) : 0;
+            if (!withinLimits(s.length(), t)) {
+                // 현재 청크를 먼저 내보내고 긴 문장은 강제 분할 (overlap 은 이어 붙이지 않음)
+                flush(false);
+                hardSplit(s);
+                return;
+            }
+            while (!current.isEmpty() && !withinLimits(chars + 1 + s.length(), tokens + t)) {
+                if (fresh > 0) flush(true);
+                else drop();
+            }
+            current.addLast(new Sentence(s, t, newlineBefore));
+            chars += (current.size() == 1 ? 0 : 1) + s.length();
+            tokens += t;
+            fresh++;
+        }
+
+        void finish() {
+            flush(false);
+        }
+
+        private boolean withinLimits(int c, int t) {
+            return (opt.maxChars() <= 0 || c <= opt.maxChars())
+                    && (opt.maxTokens() <= 0 || t <= opt.maxTokens());
+        }
+
+        private void flush(boolean keepOverlap) {
+            if (fresh > 0) {
+                StringBuilder sb = new StringBuilder(chars);
+                for (Sentence s : current) {
+                    if (!sb.isEmpty()) sb.append(s.newlineBefore() && !opt.legacyLayout() ? '\n' : ' ');
+                    sb.append(s.text());
+                }
+                sink.accept(sb.toString());
+                fresh = 0;
+            }
+            int keep = keepOverlap ? opt.overlapTokens() : 0;
+            while (!current.isEmpty() && (keep <= 0 || tokens > keep)) drop();
+        }
+
+        private void drop() {
+            Sentence s = current.removeFirst();
+            chars -= s.text().length() + (current.isEmpty() ? 0 : 1);
+            tokens -= s.tokens();
+            if (current.isEmpty()) chars = tokens = 0;
+        }
+
+        /** 상한을 넘는 한 문장을 공백 경계 우선으로 자름 (legacyLayout 이면 maxChars 마다 그대로) */
+        private void hardSplit(String s) {
+            int n = s.length();
+            int i = 0;
+            if (opt.legacyLayout() && opt.maxTokens() <= 0 && opt.maxChars() > 0) {
+                for (; i < n; i += opt.maxChars()) sink.accept(s.substring(i, Math.min(n, i + opt.maxChars())));
+                return;
+            }
+            while (i < n) {
+                int end = opt.maxChars() > 0 ? Math.min(n, i + opt.maxChars()) : n;
+                if (opt.maxTokens() > 0) {
+                    String part = s.substring(i, end);
+                    int t = tokenCounter.count(part);
+                    if (t > opt.maxTokens()) {
+                        String cut = tokenCounter.truncate("chunk.split", part, opt.maxTokens());
+                        end = part.startsWith(cut)
+                                ? i + cut.length()
+                                : i + (int) ((long) (end - i) * opt.maxTokens() / t);
+                    }
+                }
+                if (end < n) {
+                    int ws = end;
+                    int min = i + (end - i) / 2;
+                    while (ws > min && !Character.isWhitespace(s.charAt(ws))) ws--;
+                    if (ws > min) end = ws;
+                }
+                end = Math.max(end, i + 1);
+                String piece = s.substring(i, end).trim();
+                if (!piece.isEmpty()) sink.accept(piece);
+                i = end;
+                while (i < n && Character.isWhitespace(s.charAt(i))) i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ict.project.resume.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 전역 코퍼스 청크 BM25 색인 (메모리, 불변)
+ * - 용어: 2자 이상 단어(소문자) + 한글 단어의 글자 bigram
+ *   (조사/어미가 붙어도 "성능개선을", "성능개선" 이 bigram 으로 겹치도록)
+ * - 질의(사용자 이력서)와 점수가 높은 순으로 청크 반환, 질의 용어가 없으면 저장 순서 그대로
+ * - 한 번 만들면 읽기 전용이라 여러 요청에서 동시에 써도 안전
+ */
+final class CorpusIndex {
+
+    static final CorpusIndex EMPTY = build(List.of());
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    /** 질의가 너무 길 때 (이력서 전체) 빈도 높은 용어만 사용 */
+    private static final int MAX_QUERY_TERMS = 512;
+
+    private final String[] docs;
+    private final float[] lengthNorm;          // k1 * (1 - b + b * dl / avgdl)
+    private final Map<String, Posting> postings;
+
+    private record Posting(int[] docIds, int[] tfs, float idf) {}
+
+    private CorpusIndex(String[] docs, float[] lengthNorm, Map<String, Posting> postings) {
+        this.docs = docs;
+        this.lengthNorm = lengthNorm;
+        this.postings = postings;
+    }
+
+    static CorpusIndex build(List<String> contents) {
+        int n = contents.size();
+        String[] docs = contents.toArray(new String[0]);
+        int[] lengths = new int[n];
+        Map<String, int[]> growing = new HashMap<>(); // term → [size, docId, tf, docId, tf, ...]
+        long totalLength = 0;
+
+        for (int d = 0; d < n; d++) {
+            Map<String, Integer> tf = termFrequencies(docs[d]);
+            for (Map.Entry<String, Integer> e : tf.entrySet()) {
+                int[] list = growing.get(e.getKey());
+                if (list == null) list = new int[9];
+                else if (list[0] + 3 > list.length) list = Arrays.copyOf(list, list.length * 2 + 1);
+                list[list[0] + 1] = d;
+                list[list[0] + 2] = e.getValue();
+                list[0] += 2;
+                growing.put(e.getKey(), list);
+                lengths[d] += e.getValue();
+            }
+            totalLength += lengths[d];
+        }
+
+        float avgdl = n == 0 ? 1f : Math.max(1f, (float) totalLength / n);
+        float[] lengthNorm = new float[n];
+        for (int d = 0; d < n; d++) lengthNorm[d] = K1 * (1 - B + B * lengths[d] / avgdl);
+
+        Map<String, Posting> postings = new HashMap<>(growing.size() * 2);
+        for (Map.Entry<String, int[]> e : growing.entrySet()) {
+            int[] list = e.getValue();
+            int df = list[0] / 2;
+            int[] ids = new int[df];
+            int[] tfs = new int[df];
+            for (int i = 0; i < df; i++) {
+                ids[i] = list[1 + i * 2];
+                tfs[i] = list[2 + i * 2];
+            }
+            float idf = (float) Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            postings.put(e.getKey(), new Posting(ids, tfs, idf));
+        }
+        return new CorpusIndex(docs, lengthNorm, postings);
+    }
+
+    int size() {
+        return docs.length;
+    }
+
+    /** query 와 BM25 점수가 높은 순으로 최대 limit 개 (점수 0 인 청크는 저장 순서대로 뒤를 채움) */
+    List<String> top(String query, int limit) {
+        int n = docs.length;
+        if (n == 0 || limit <= 0) return List.of();
+
+        float[] scores = new float[n];
+        boolean any = false;
+        for (Map.Entry<String, Integer> q : queryTerms(query).entrySet()) {
+            Posting p = postings.get(q.getKey());
+            if (p == null) continue;
+            any = true;
+            for (int i = 0; i < p.docIds.length; i++) {
+                int d = p.docIds[i];
+                int tf = p.tfs[i];
+                scores[d] += p.idf * (tf * (K1 + 1)) / (tf + lengthNorm[d]);
+            }
+        }
+
+        int k = Math.min(limit, n);
+        List<String> out = new ArrayList<>(k);
+        if (any) {
+            // 상위 k 개만 유지하는 최소 힙 (동점이면 저장 순서가 앞선 청크 우선)
+            Comparator<Integer> worse = (a, b) ->
+                    scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a);
+            PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, worse);
+            for (int d = 0; d < n; d++) {
+                if (scores[d] <= 0) continue;
+                heap.offer(d);
+                if (heap.size() > k) heap.poll();
+            }
+            Integer[] ranked = heap.toArray(new Integer[0]);
+            Arrays.sort(ranked, worse.reversed());
+            for (Integer d : ranked) out.add(docs[d]);
+        }
+        for (int d = 0; d < n && out.size() < k; d++) {
+            if (!any || scores[d] <= 0) out.add(docs[d]);
+        }
+        return out;
+    }
+
+    private static Map<String, Integer> queryTerms(String query) {
+        Map<String, Integer> tf = termFrequencies(query);
+        if (tf.size() <= MAX_QUERY_TERMS) return tf;
+        Map<String, Integer> top = new HashMap<>(MAX_QUERY_TERMS * 2);
+        tf.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(MAX_QUERY_TERMS)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    /** 용어 빈도: 단어(2자 이상, 소문자) + 한글 글자 bigram */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> tf = new HashMap<>();
+        if (text == null || text.isEmpty()) return tf;
+
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            while (i < len && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < len && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i - start < 2) continue;
+
+            String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+            tf.merge(word, 1, Integer::sum);
+            for (int j = 0; j + 1 < word.length(); j++) {
+                char a = word.charAt(j);
+                char b = word.charAt(j + 1);
+                if (isHangul(a) && isHangul(b) && word.length() > 2) {
+                    tf.merge("#" + a + b, 1, Integer::sum);
+                }
+            }
+        }
+        return tf;
+    }
+
+    private static boolean isHangul(char c) {
+        return c >= '가' && c <= '힣';
+    }
+}
@@ -0,0 +1,142 @@
+package ict.project.resume.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 동시에 들어온 단건 임베딩 요청을 짧은 시간(windowMs) 동안 모아서 /embeddings 한 번으로 보내는 마이크로 배처.
+ * - 배치 상한: 입력 개수(maxInputs), 총 문자 수(maxChars)
+ * - 배치 전송은 별도 스레드에서 수행 → 여러 배치가 동시에 in-flight 가능
+ */
+@Slf4j
+public class EmbeddingBatcher implements AutoCloseable {
+
+    private record Pending(String text, CompletableFuture<float[]> future) {}
+
+    private final OpenAiEmbeddingClient client;
+    private final String model;
+    private final long windowNanos;
+    private final int maxInputs;
+    private final int maxChars;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService dispatcher;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    public EmbeddingBatcher(OpenAiEmbeddingClient client, String model,
+                            long windowMs, int maxInputs, int maxChars, int maxInFlight) {
+        this.client = client;
+        this.model = model;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMs));
+        this.maxInputs = Math.max(1, maxInputs);
+        this.maxChars = Math.max(1, maxChars);
+
+        AtomicInteger seq = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, maxInFlight), r -> {
+            Thread t = new Thread(r, "embedding-batch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.collector = new Thread(this::collectLoop, "embedding-batcher");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /** 단건 요청 등록 → 배치 응답에서 자기 자리 벡터를 받아감 */
+    public CompletableFuture<float[]> submit(String text) {
+        CompletableFuture<float[]> f = new CompletableFuture<>();
+        if (!running) {
+            f.completeExceptionally(new IllegalStateException("EmbeddingBatcher is closed"));
+            return f;
+        }
+        queue.add(new Pending(text, f));
+        return f;
+    }
+
+    private void collectLoop() {
+        Pending carry = null; // 문자 상한에 걸려 다음 배치의 첫 항목이 될 요청
+        while (running) {
+            try {
+                Pending first = (carry != null) ? carry : queue.poll(200, TimeUnit.MILLISECONDS);
+                carry = null;
+                if (first == null) continue;
+
+                List<Pending> batch = new ArrayList<>();
+                batch.add(first);
+                int chars = first.text().length();
+                long deadline = System.nanoTime() + windowNanos;
+
+                while (batch.size() < maxInputs) {
+                    long wait = deadline - System.nanoTime();
+                    // 윈도우가 지나도 이미 큐에 쌓인 요청은 상한까지 함께 보냄
+                    Pending next = (wait > 0) ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    if (chars + next.text().length() > maxChars) {
+                        carry = next;
+                        break;
+                    }
+                    batch.add(next);
+                    chars += next.text().length();
+                }
+                dispatch(batch);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("embedding batcher loop error", e);
+            }
+        }
+        if (carry != null) carry.future().completeExceptionally(new IllegalStateException("EmbeddingBatcher is closed"));
+        failRemaining(new IllegalStateException("EmbeddingBatcher is closed"));
+    }
+
+    private void dispatch(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            dispatcher.execute(() -> send(batch));
+        } catch (Exception e) {
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        try {
+            List<String> inputs = new ArrayList<>(batch.size());
+            for (Pending p : batch) inputs.add(p.text());
+
+            List<float[]> vectors = client.embed(model, inputs);
+            if (vectors == null || vectors.size() != batch.size()) {
+                throw new IllegalStateException("embedding count mismatch: expected=" + batch.size()
+                        + ", actual=" + (vectors == null ? 0 : vectors.size()));
+            }
+            log.debug("embedding batch sent: inputs={}", batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(vectors.get(i));
+            }
+        } catch (Exception e) {
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    private void failRemaining(Exception cause) {
+        Pending p;
+        while ((p = queue.poll()) != null) p.future().completeExceptionally(cause);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        collector.interrupt();
+        dispatcher.shutdown();
+    }
+}
@@ -1,6 +1,8 @@
 // src/main/java/ict/project/resume/service/EmbeddingService.java
 package ict.project.resume.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -15,29 +19,115 @@ import java.util.List;
 public class EmbeddingService {
 
     private final OpenAiEmbeddingClient openAiEmbeddingClient;
+    private final TokenCounter tokenCounter;
 
     @Value("${openai.embeddings.model:text-embedding-3-small}")
     private String model;
 
-    /** 단일 텍스트 임베딩 -> float[] */
+    /** 마이크로 배치: 동시 단건 요청을 모으는 대기 시간(ms) */
+    @Value("${openai.embeddings.batch.window-ms:5}")
+    private long batchWindowMs;
+
+    /** 한 번의 /embeddings 요청에 담을 최대 입력 개수 (OpenAI 상한 2048) */
+    @Value("${openai.embeddings.batch.max-inputs:256}")
+    private int batchMaxInputs;
+
+    /** 한 번의 /embeddings 요청에 담을 최대 총 문자 수 */
+    @Value("${openai.embeddings.batch.max-chars:200000}")
+    private int batchMaxChars;
+
+    /** 동시에 보낼 수 있는 배치 요청 수 */
+    @Value("${openai.embeddings.batch.max-in-flight:4}")
+    private int batchMaxInFlight;
+
+    private EmbeddingBatcher batcher;
+
+    @PostConstruct
+    void init() {
+        batcher = new EmbeddingBatcher(openAiEmbeddingClient, model,
+                batchWindowMs, batchMaxInputs, batchMaxChars, batchMaxInFlight);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (batcher != null) batcher.close();
+    }
+
+    /** 단일 텍스트 임베딩 -> float[] (동시 호출은 배처가 한 요청으로 묶음) */
     public float[] embed(String text) {
         String safe = limitForEmbedding(nz(text));
         if (safe.isBlank()) return new float[0];
 
         try {
-            List<String> inputs = List.of(safe);     // <-- List<String>
-            List<float[]> result = openAiEmbeddingClient.embed(model, inputs); // <-- 시그니처 일치
-            log.info("Embedding result: {}", result);
-            return (result != null && !result.isEmpty()) ? result.get(0) : new float[0];
+            float[] vec = batcher.submit(safe).join();
+            return vec != null ? vec : new float[0];
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("OpenAI embeddings error", cause);
+            throw new RuntimeException("OpenAI embeddings failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /** 논블로킹 단건 임베딩 (배처 응답을 기다리지 않고 future 반환) */
+    public CompletableFuture<float[]> embedAsync(String text) {
+        String safe = limitForEmbedding(nz(text));
+        if (safe.isBlank()) return CompletableFuture.completedFuture(new float[0]);
+        return batcher.submit(safe);
+    }
+
+    /**
+     * 여러 텍스트를 한 번에 임베딩 (입력 순서 유지)
+     * - 개수/총 문자 수 상한에 맞춰 /embeddings 요청을 나눠 보냄
+     * - 빈 텍스트 자리는 빈 벡터(float[0])
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> out = new ArrayList<>(texts == null ? 0 : texts.size());
+        if (texts == null || texts.isEmpty()) return out;
+
+        List<String> batch = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int chars = 0;
+
+        for (String t : texts) {
+            String safe = limitForEmbedding(nz(t));
+            out.add(new float[0]);
+            if (safe.isBlank()) continue;
+
+            if (!batch.isEmpty() && (batch.size() >= batchMaxInputs || chars + safe.length() > batchMaxChars)) {
+                sendBatch(batch, slots, out);
+                batch.clear();
+                slots.clear();
+                chars = 0;
+            }
+            batch.add(safe);
+            slots.add(out.size() - 1);
+            chars += safe.length();
+        }
+        if (!batch.isEmpty()) sendBatch(batch, slots, out);
+        return out;
+    }
+
+    private void sendBatch(List<String> batch, List<Integer> slots, List<float[]> out) {
+        try {
+            List<float[]> result = openAiEmbeddingClient.embed(model, batch);
+            if (result == null || result.size() != batch.size()) {
+                throw new IllegalStateException("embedding count mismatch: expected=" + batch.size()
+                        + ", actual=" + (result == null ? 0 : result.size()));
+            }
+            log.debug("Embedding batch done: inputs={}", batch.size());
+            for (int i = 0; i < slots.size(); i++) out.set(slots.get(i), result.get(i));
         } catch (Exception e) {
-            log.error("OpenAI embeddings error", e);
+            log.error("OpenAI embeddings error (batch={})", batch.size(), e);
             throw new RuntimeException("OpenAI embeddings failed: " + e.getMessage(), e);
         }
     }
 
     /** float[] -> List<Float> 가 필요한 곳(예: Chroma)용 */
     public List<Float> embedAsList(String text) {
-        float[] arr = embed(text);
+        return toList(embed(text));
+    }
+
+    public static List<Float> toList(float[] arr) {
         List<Float> out = new ArrayList<>(arr.length);
         for (float v : arr) out.add(v);
         return out;
@@ -45,14 +135,12 @@ public class EmbeddingService {
 
     private static String nz(String s) { return s == null ? "" : s; }
 
-    /** 너무 긴 입력을 잘라서 모델 한도 보호 */
-    private static String limitForEmbedding(String s) {
-        int maxChars = 7000; // 필요시 조정 (토큰 기준이 더 정확하지만, 문자수 컷도 실무에선 충분)
-        return (s.length() > maxChars) ? s.substring(0, maxChars) : s;
+    /** 임베딩 모델 입력 토큰 상한으로 자르기 (openai.embeddings.max-input-tokens) */
+    private String limitForEmbedding(String s) {
+        return tokenCounter.truncateForEmbedding("embedding.input", s);
     }
 }
 
-
 //package ict.project.resume.service;
 //
 //import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -0,0 +1,564 @@
+package ict.project.resume.service;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 인프로세스 HNSW(Hierarchical Navigable Small World) 근사 최근접 이웃 인덱스.
+ * - 거리: 코사인 거리(1 - cos). 벡터는 추가 시 L2 정규화해서 저장
+ * - 벡터 저장: 페이지 단위 primitive float[] (노드 1024개 = 1페이지, 박싱 없음)
+ * - 동시성: 쓰기(add/remove)는 단일 writer 락으로 직렬화, 검색은 락 없이 수행
+ *   (이웃 리스트는 copy-on-write int[] 를 AtomicReferenceArray 로 게시 → 검색 스레드는 항상 완성된 배열만 봄)
+ * - 삭제/덮어쓰기: 톰스톤 처리 (탐색 경로로는 쓰되 결과에서는 제외)
+ * - 스냅샷에서 로드한 노드(0 ~ baseCount-1)의 벡터는 mmap 된 FloatBuffer 에서 직접 읽음 (힙 밖)
+ */
+public class HnswIndex {
+
+    static final int PAGE_BITS = 10;
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    public record Hit(String id, float distance) {}
+
+    private record EntryPoint(int node, int level) {}
+
+    static final class Node {
+        final String id;
+        final int level;
+        final AtomicReferenceArray<int[]> links; // level -> neighbor node ids
+        volatile boolean deleted;
+
+        Node(String id, int level) {
+            this.id = id;
+            this.level = level;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) links.set(l, new int[0]);
+        }
+    }
+
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final double levelMult;
+    private volatile int efSearch;
+
+    private volatile int dim = -1;
+
+    /** 스냅샷 세그먼트에서 mmap 한 벡터 영역 (읽기 전용). 2GB 매핑 한도 때문에 여러 구역으로 나뉨 */
+    private final FloatBuffer[] baseRegions;
+    private final int nodesPerRegion;
+    private final int baseCount;
+
+    /** baseCount 이후에 추가된 노드의 벡터 (node - baseCount 기준 페이지) */
+    private volatile float[][] vectorPages = new float[0][];
+    private volatile Node[][] nodePages = new Node[0][];
+    private volatile int size = 0;
+    private volatile EntryPoint entry;
+
+    private final Map<String, Integer> idToNode = new ConcurrentHashMap<>();
+    private final AtomicInteger deleted = new AtomicInteger();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private static final ThreadLocal<Visited> VISITED = ThreadLocal.withInitial(Visited::new);
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.m0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMult = 1.0 / Math.log(this.m);
+        this.baseRegions = new FloatBuffer[0];
+        this.nodesPerRegion = 1;
+        this.baseCount = 0;
+    }
+
+    /**
+     * 스냅샷 로드용 생성자 (HnswSegmentFile).
+     * baseNodes[i] 의 벡터는 baseRegions[i / nodesPerRegion] 의 (i % nodesPerRegion) * dim 위치 (정규화된 상태).
+     */
+    HnswIndex(int m, int efConstruction, int efSearch, int dim,
+              FloatBuffer[] baseRegions, int nodesPerRegion, Node[] baseNodes, int entryNode, int entryLevel) {
+        this.m = Math.max(2, m);
+        this.m0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMult = 1.0 / Math.log(this.m);
+        this.baseRegions = baseRegions;
+        this.nodesPerRegion = Math.max(1, nodesPerRegion);
+        this.baseCount = baseNodes.length;
+        this.dim = baseNodes.length == 0 ? -1 : dim;
+
+        int pages = (baseNodes.length + PAGE_SIZE - 1) >>> PAGE_BITS;
+        Node[][] np = new Node[pages][];
+        for (int p = 0; p < pages; p++) np[p] = new Node[PAGE_SIZE];
+        int dead = 0;
+        for (int i = 0; i < baseNodes.length; i++) {
+            Node n = baseNodes[i];
+            np[i >>> PAGE_BITS][i & PAGE_MASK] = n;
+            if (n.deleted) dead++;
+            else idToNode.put(n.id, i);
+        }
+        this.nodePages = np;
+        this.deleted.set(dead);
+        this.size = baseNodes.length;
+        this.entry = (entryNode >= 0 && entryNode < baseNodes.length) ? new EntryPoint(entryNode, entryLevel) : null;
+    }
+
+    /* ===================== 조회용 ===================== */
+
+    public int dimension() { return dim; }
+
+    /** 톰스톤 포함 노드 수 */
+    public int size() { return size; }
+
+    public int liveCount() { return size - deleted.get(); }
+
+    public int efSearch() { return efSearch; }
+
+    public void setEfSearch(int efSearch) { this.efSearch = Math.max(1, efSearch); }
+
+    public boolean contains(String id) { return idToNode.containsKey(id); }
+
+    public int m() { return m; }
+
+    public int efConstruction() { return efConstruction; }
+
+    /* ===================== 쓰기 ===================== */
+
+    /** 벡터 추가. 같은 id가 있으면 기존 노드는 톰스톤 처리 후 새 노드로 교체 */
+    public void add(String id, float[] vector) {
+        if (id == null) throw new IllegalArgumentException("id must not be null");
+        if (vector == null || vector.length == 0) throw new IllegalArgumentException("vector must not be empty");
+
+        writeLock.lock();
+        try {
+            if (dim < 0) dim = vector.length;
+            if (vector.length != dim) {
+                throw new IllegalArgumentException("Embedding dimension mismatch. index=" + dim + ", vector=" + vector.length);
+            }
+            Integer prev = idToNode.get(id);
+            if (prev != null) markDeleted(prev);
+
+            int node = size;
+            int level = randomLevel();
+            ensureCapacity(node);
+
+            int v = node - baseCount;
+            float[] page = vectorPages[v >>> PAGE_BITS];
+            int base = (v & PAGE_MASK) * dim;
+            System.arraycopy(vector, 0, page, base, dim);
+            normalizeInPlace(page, base, dim);
+            Node n = new Node(id, level);
+            nodePages[node >>> PAGE_BITS][node & PAGE_MASK] = n;
+            size = node + 1; // 게시: 이후 검색 스레드가 노드 데이터를 볼 수 있음
+
+            EntryPoint ep = entry;
+            if (ep == null) {
+                entry = new EntryPoint(node, level);
+                idToNode.put(id, node);
+                return;
+            }
+            connect(node, level, ep);
+            if (level > ep.level()) entry = new EntryPoint(node, level);
+            idToNode.put(id, node);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        writeLock.lock();
+        try {
+            Integer node = idToNode.remove(id);
+            if (node == null) return false;
+            markDeleted(node);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void markDeleted(int node) {
+        Node n = node(node);
+        if (!n.deleted) {
+            n.deleted = true;
+            deleted.incrementAndGet();
+        }
+    }
+
+    private void connect(int node, int level, EntryPoint ep) {
+        int cur = ep.node();
+        float curDist = distance(node, cur);
+        for (int lc = ep.level(); lc > level; lc--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int nb : node(cur).links.get(lc)) {
+                    float d = distance(node, nb);
+                    if (d < curDist) {
+                        curDist = d;
+                        cur = nb;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        int[] eps = {cur};
+        float[] q = vectorOf(node);
+        for (int lc = Math.min(level, ep.level()); lc >= 0; lc--) {
+            Heap found = searchLayer(q, eps, efConstruction, lc);
+            int maxConn = lc == 0 ? m0 : m;
+            int[] sorted = found.drainAscending();
+            int[] neighbors = selectNeighbors(sorted, distancesTo(node, sorted), m);
+            node(node).links.set(lc, neighbors);
+
+            for (int nb : neighbors) {
+                Node nbNode = node(nb);
+                int[] old = nbNode.links.get(lc);
+                int[] grown = Arrays.copyOf(old, old.length + 1);
+                grown[old.length] = node;
+                if (grown.length > maxConn) {
+                    float[] ds = distancesTo(nb, grown);
+                    sortByDistance(grown, ds);
+                    grown = selectNeighbors(grown, ds, maxConn);
+                }
+                nbNode.links.set(lc, grown);
+            }
+            eps = sorted;
+        }
+    }
+
+    /**
+     * 이웃 선택 휴리스틱 (Malkov & Yashunin, Alg.4)
+     * candidates 는 기준점과의 거리 오름차순이어야 함. 다양성 조건으로 못 뽑힌 후보는 남는 자리에 채움.
+     */
+    private int[] selectNeighbors(int[] candidates, float[] dists, int max) {
+        if (candidates.length <= max) return candidates;
+        int[] out = new int[max];
+        int count = 0;
+        int[] pruned = new int[candidates.length];
+        int prunedCount = 0;
+        for (int i = 0; i < candidates.length && count < max; i++) {
+            int c = candidates[i];
+            boolean good = true;
+            for (int j = 0; j < count; j++) {
+                if (distance(c, out[j]) < dists[i]) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) out[count++] = c;
+            else pruned[prunedCount++] = c;
+        }
+        for (int i = 0; i < prunedCount && count < max; i++) out[count++] = pruned[i];
+        return count == max ? out : Arrays.copyOf(out, count);
+    }
+
+    /* ===================== 검색 ===================== */
+
+    public List<Hit> search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    public List<Hit> search(float[] query, int k, int ef) {
+        EntryPoint ep = entry;
+        if (ep == null || k <= 0) return List.of();
+        if (query.length != dim) {
+            throw new IllegalArgumentException("Embedding dimension mismatch. index=" + dim + ", query=" + query.length);
+        }
+        float[] q = Arrays.copyOf(query, query.length);
+        normalizeInPlace(q, 0, q.length);
+
+        int cur = ep.node();
+        float curDist = distance(q, cur);
+        for (int lc = ep.level(); lc > 0; lc--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int nb : node(cur).links.get(lc)) {
+                    float d = distance(q, nb);
+                    if (d < curDist) {
+                        curDist = d;
+                        cur = nb;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        // 톰스톤은 결과에서 빠지므로 ef를 삭제 비율만큼 여유 있게
+        int effective = Math.max(ef, k) + Math.min(deleted.get(), Math.max(ef, k));
+        Heap found = searchLayer(q, new int[]{cur}, effective, 0);
+        int[] sorted = found.drainAscending();
+
+        List<Hit> out = new ArrayList<>(Math.min(k, sorted.length));
+        for (int node : sorted) {
+            Node n = node(node);
+            if (n.deleted) continue;
+            out.add(new Hit(n.id, distance(q, node)));
+            if (out.size() >= k) break;
+        }
+        return out;
+    }
+
+    /** 한 레이어에서 ef 개 근접 후보 탐색. 결과는 max-heap(가장 먼 것이 top) */
+    private Heap searchLayer(float[] q, int[] entryPoints, int ef, int level) {
+        Visited visited = VISITED.get();
+        visited.reset(size);
+
+        Heap candidates = new Heap(ef * 2, false); // 가까운 순
+        Heap results = new Heap(ef + 1, true);     // 먼 순
+        for (int ep : entryPoints) {
+            if (!visited.mark(ep)) continue;
+            float d = distance(q, ep);
+            candidates.push(d, ep);
+            results.push(d, ep);
+            if (results.size() > ef) results.pop();
+        }
+
+        while (candidates.size() > 0) {
+            float cd = candidates.peekKey();
+            int c = candidates.pop();
+            if (results.size() >= ef && cd > results.peekKey()) break;
+
+            Node cn = node(c);
+            if (cn.level < level) continue;
+            for (int nb : cn.links.get(level)) {
+                if (!visited.mark(nb)) continue;
+                float d = distance(q, nb);
+                if (results.size() < ef || d < results.peekKey()) {
+                    candidates.push(d, nb);
+                    results.push(d, nb);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    /* ===================== 저장소 ===================== */
+
+    Node node(int node) {
+        return nodePages[node >>> PAGE_BITS][node & PAGE_MASK];
+    }
+
+    /** 엔트리 포인트 {node, level}, 비어 있으면 null */
+    int[] entrySnapshot() {
+        EntryPoint ep = entry;
+        return ep == null ? null : new int[]{ep.node(), ep.level()};
+    }
+
+    /** 정규화된 벡터 사본 (저장 시점 기준) */
+    float[] vectorOf(int node) {
+        float[] out = new float[dim];
+        copyVector(node, out);
+        return out;
+    }
+
+    void copyVector(int node, float[] dst) {
+        int d = dim;
+        if (node < baseCount) {
+            baseRegions[node / nodesPerRegion].get((node % nodesPerRegion) * d, dst, 0, d);
+        } else {
+            int v = node - baseCount;
+            System.arraycopy(vectorPages[v >>> PAGE_BITS], (v & PAGE_MASK) * d, dst, 0, d);
+        }
+    }
+
+    private void ensureCapacity(int node) {
+        int nodePage = node >>> PAGE_BITS;
+        if (nodePage >= nodePages.length) {
+            Node[][] np = Arrays.copyOf(nodePages, nodePage + 1);
+            for (int p = nodePages.length; p <= nodePage; p++) np[p] = new Node[PAGE_SIZE];
+            nodePages = np;
+        }
+        int vecPage = (node - baseCount) >>> PAGE_BITS;
+        if (vecPage >= vectorPages.length) {
+            float[][] vp = Arrays.copyOf(vectorPages, vecPage + 1);
+            for (int p = vectorPages.length; p <= vecPage; p++) vp[p] = new float[PAGE_SIZE * dim];
+            vectorPages = vp;
+        }
+    }
+
+    private float distance(float[] q, int node) {
+        return distance(q, 0, node);
+    }
+
+    /** q[qOff .. qOff+dim) 와 node 벡터의 코사인 거리 */
+    private float distance(float[] q, int qOff, int node) {
+        int d = dim;
+        float dot = 0f;
+        if (node < baseCount) {
+            FloatBuffer r = baseRegions[node / nodesPerRegion];
+            int off = (node % nodesPerRegion) * d;
+            for (int i = 0; i < d; i++) dot += q[qOff + i] * r.get(off + i);
+        } else {
+            int v = node - baseCount;
+            float[] page = vectorPages[v >>> PAGE_BITS];
+            int base = (v & PAGE_MASK) * d;
+            for (int i = 0; i < d; i++) dot += q[qOff + i] * page[base + i];
+        }
+        return 1f - dot;
+    }
+
+    private float distance(int a, int b) {
+        if (a >= baseCount) {
+            int v = a - baseCount;
+            return distance(vectorPages[v >>> PAGE_BITS], (v & PAGE_MASK) * dim, b);
+        }
+        if (b >= baseCount) {
+            int v = b - baseCount;
+            return distance(vectorPages[v >>> PAGE_BITS], (v & PAGE_MASK) * dim, a);
+        }
+        // 둘 다 mmap 영역
+        int d = dim;
+        FloatBuffer ra = baseRegions[a / nodesPerRegion];
+        FloatBuffer rb = baseRegions[b / nodesPerRegion];
+        int oa = (a % nodesPerRegion) * d;
+        int ob = (b % nodesPerRegion) * d;
+        float dot = 0f;
+        for (int i = 0; i < d; i++) dot += ra.get(oa + i) * rb.get(ob + i);
+        return 1f - dot;
+    }
+
+    private float[] distancesTo(int node, int[] others) {
+        float[] ds = new float[others.length];
+        for (int i = 0; i < others.length; i++) ds[i] = distance(node, others[i]);
+        return ds;
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, 1e-12)) * levelMult);
+    }
+
+    private static void normalizeInPlace(float[] v, int off, int len) {
+        double sum = 0.0;
+        for (int i = off; i < off + len; i++) sum += (double) v[i] * v[i];
+        if (sum <= 0) return;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = off; i < off + len; i++) v[i] *= inv;
+    }
+
+    /** 삽입 정렬 (이웃 수 ≤ 2M 이라 충분) */
+    private static void sortByDistance(int[] ids, float[] ds) {
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            float d = ds[i];
+            int j = i - 1;
+            while (j >= 0 && ds[j] > d) {
+                ids[j + 1] = ids[j];
+                ds[j + 1] = ds[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            ds[j + 1] = d;
+        }
+    }
+
+    /* ===================== 내부 자료구조 ===================== */
+
+    /** (거리, 노드) 이진 힙. 박싱 없이 primitive 배열 사용 */
+    static final class Heap {
+        private float[] keys;
+        private int[] vals;
+        private int n;
+        private final boolean max;
+
+        Heap(int capacity, boolean max) {
+            this.keys = new float[Math.max(4, capacity)];
+            this.vals = new int[Math.max(4, capacity)];
+            this.max = max;
+        }
+
+        int size() { return n; }
+
+        float peekKey() { return keys[0]; }
+
+        void push(float key, int val) {
+            if (n == keys.length) {
+                keys = Arrays.copyOf(keys, n * 2);
+                vals = Arrays.copyOf(vals, n * 2);
+            }
+            int i = n++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(key, keys[parent])) break;
+                keys[i] = keys[parent];
+                vals[i] = vals[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            vals[i] = val;
+        }
+
+        int pop() {
+            int top = vals[0];
+            n--;
+            if (n > 0) {
+                float key = keys[n];
+                int val = vals[n];
+                int i = 0;
+                while (true) {
+                    int l = 2 * i + 1;
+                    if (l >= n) break;
+                    int r = l + 1;
+                    int c = (r < n && before(keys[r], keys[l])) ? r : l;
+                    if (!before(keys[c], key)) break;
+                    keys[i] = keys[c];
+                    vals[i] = vals[c];
+                    i = c;
+                }
+                keys[i] = key;
+                vals[i] = val;
+            }
+            return top;
+        }
+
+        /** 거리 오름차순으로 꺼냄 (heap 은 비워짐) */
+        int[] drainAscending() {
+            int[] out = new int[n];
+            if (max) {
+                for (int i = out.length - 1; i >= 0; i--) out[i] = pop();
+            } else {
+                for (int i = 0; i < out.length; i++) out[i] = pop();
+            }
+            return out;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+
+    /** 스레드별 방문 표시 (세대 번호 방식 → 매 검색마다 배열을 지우지 않음) */
+    static final class Visited {
+        private int[] stamps = new int[1024];
+        private int epoch = 0;
+
+        void reset(int expectedSize) {
+            if (stamps.length < expectedSize) stamps = new int[Math.max(expectedSize, stamps.length * 2)];
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+
+        /** 처음 방문이면 true */
+        boolean mark(int node) {
+            if (node >= stamps.length) stamps = Arrays.copyOf(stamps, Math.max(node + 1, stamps.length * 2));
+            if (stamps[node] == epoch) return false;
+            stamps[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package ict.project.resume.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * HnswIndex 스냅샷 세그먼트 파일 (단일 파일, 컬렉션 1개).
+ *
+ * 레이아웃
+ *   [0, 64)        헤더 (LE): magic, version, dim, count, m, efConstruction, entryNode, entryLevel,
+ *                  vectorOffset(long), graphOffset(long), recordsOffset(long)
+ *   [64, ...)      벡터 섹션: 정규화된 float32 LE, node 순서대로 count * dim 개 → 로드 시 mmap (힙에 올리지 않음)
+ *   graphOffset    그래프 섹션 (DataOutputStream): 노드별 level, deleted, 레벨별 이웃 수 + 이웃 node
+ *   recordsOffset  레코드 섹션 (DataOutputStream): 노드별 id, payload 유무, text, metadata(JSON)
+ *
+ * 쓰기는 임시 파일 → fsync → atomic move 순서라서 중간에 죽어도 이전 세그먼트는 그대로 남는다.
+ */
+final class HnswSegmentFile {
+
+    static final int MAGIC = 0x484E5357; // "HNSW"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    /** 매핑 1구역 최대 크기 (MappedByteBuffer 는 2GB 미만만 가능) */
+    private static final long MAX_REGION_BYTES = 1L << 30;
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    record Loaded(HnswIndex index, Map<String, HnswVectorStoreService.Payload> payloads) {}
+
+    private HnswSegmentFile() {}
+
+    /**
+     * 인덱스 스냅샷 저장. 쓰기와 동시에 호출돼도 되며, 호출 시점까지 게시된 노드만 저장된다.
+     * payloadOf 는 id → payload (없으면 null)
+     */
+    static void write(Path target, HnswIndex index,
+                      Function<String, HnswVectorStoreService.Payload> payloadOf) throws IOException {
+        // entry 를 size 보다 먼저 읽어야 entry.node < count 가 보장됨 (add 는 size 게시 후 entry 갱신)
+        int[] ep = index.entrySnapshot();
+        int count = ep == null ? 0 : index.size();
+        int dim = Math.max(0, index.dimension());
+
+        Path tmp = Files.createTempFile(target.getParent(), "seg-", ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // 1) 벡터 섹션
+            long vectorOffset = HEADER_BYTES;
+            ch.position(vectorOffset);
+            ByteBuffer buf = ByteBuffer.allocateDirect(Math.max(dim, 1) * Float.BYTES * 256).order(ByteOrder.LITTLE_ENDIAN);
+            float[] vec = new float[dim];
+            for (int node = 0; node < count; node++) {
+                index.copyVector(node, vec);
+                if (buf.remaining() < dim * Float.BYTES) flush(ch, buf);
+                for (float f : vec) buf.putFloat(f);
+            }
+            flush(ch, buf);
+
+            // 2) 그래프 섹션 (스트림은 닫지 않음 → 채널은 try-with-resources 가 닫음)
+            long graphOffset = ch.position();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            for (int node = 0; node < count; node++) {
+                HnswIndex.Node n = index.node(node);
+                out.writeInt(n.level);
+                out.writeBoolean(n.deleted);
+                for (int l = 0; l <= n.level; l++) {
+                    int[] links = n.links.get(l);
+                    int valid = 0;
+                    for (int nb : links) if (nb < count) valid++; // 스냅샷 이후 추가된 노드는 제외
+                    out.writeInt(valid);
+                    for (int nb : links) if (nb < count) out.writeInt(nb);
+                }
+            }
+            out.flush();
+
+            // 3) 레코드 섹션
+            long recordsOffset = ch.position();
+            for (int node = 0; node < count; node++) {
+                HnswIndex.Node n = index.node(node);
+                writeString(out, n.id);
+                HnswVectorStoreService.Payload p = n.deleted ? null : payloadOf.apply(n.id);
+                out.writeBoolean(p != null);
+                if (p != null) {
+                    writeString(out, p.text());
+                    writeString(out, om.writeValueAsString(p.metadata()));
+                }
+            }
+            out.flush();
+
+            // 4) 헤더는 마지막에 (섹션 오프셋 확정 후)
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(dim).putInt(count)
+                    .putInt(index.m()).putInt(index.efConstruction())
+                    .putInt(ep == null ? -1 : ep[0]).putInt(ep == null ? -1 : ep[1])
+                    .putLong(vectorOffset).putLong(graphOffset).putLong(recordsOffset);
+            header.clear();
+            ch.write(header, 0);
+            ch.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** 세그먼트 로드. 벡터는 mmap(READ_ONLY), 그래프/레코드는 힙으로 읽음 */
+    static Loaded read(Path file, int efSearch) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && ch.read(header, header.position()) > 0) { /* fill */ }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("not a hnsw segment: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported segment version " + version + ": " + file);
+            int dim = header.getInt();
+            int count = header.getInt();
+            int m = header.getInt();
+            int efConstruction = header.getInt();
+            int entryNode = header.getInt();
+            int entryLevel = header.getInt();
+            long vectorOffset = header.getLong();
+            long graphOffset = header.getLong();
+            long recordsOffset = header.getLong();
+
+            // 벡터: 1GB 단위 구역으로 매핑 (채널을 닫아도 매핑은 유지됨)
+            long nodeBytes = (long) Math.max(dim, 1) * Float.BYTES;
+            int nodesPerRegion = (int) Math.max(1, MAX_REGION_BYTES / nodeBytes);
+            int regionCount = (count + nodesPerRegion - 1) / nodesPerRegion;
+            FloatBuffer[] regions = new FloatBuffer[regionCount];
+            for (int r = 0; r < regionCount; r++) {
+                int nodes = Math.min(nodesPerRegion, count - r * nodesPerRegion);
+                long pos = vectorOffset + (long) r * nodesPerRegion * nodeBytes;
+                regions[r] = ch.map(FileChannel.MapMode.READ_ONLY, pos, nodes * nodeBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asFloatBuffer();
+            }
+
+            ch.position(graphOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16));
+            int[] levels = new int[count];
+            boolean[] deleted = new boolean[count];
+            int[][][] links = new int[count][][];
+            for (int node = 0; node < count; node++) {
+                levels[node] = in.readInt();
+                deleted[node] = in.readBoolean();
+                links[node] = new int[levels[node] + 1][];
+                for (int l = 0; l <= levels[node]; l++) {
+                    int[] nb = new int[in.readInt()];
+                    for (int i = 0; i < nb.length; i++) nb[i] = in.readInt();
+                    links[node][l] = nb;
+                }
+            }
+
+            ch.position(recordsOffset);
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16));
+            HnswIndex.Node[] nodes = new HnswIndex.Node[count];
+            Map<String, HnswVectorStoreService.Payload> payloads = new HashMap<>(Math.max(16, count * 2));
+            for (int node = 0; node < count; node++) {
+                HnswIndex.Node n = new HnswIndex.Node(readString(in), levels[node]);
+                for (int l = 0; l <= levels[node]; l++) n.links.set(l, links[node][l]);
+                n.deleted = deleted[node];
+                nodes[node] = n;
+                if (in.readBoolean()) {
+                    String text = readString(in);
+                    Map<String, Object> metadata = om.readValue(readString(in), new TypeReference<>() {});
+                    if (!n.deleted) payloads.put(n.id, new HnswVectorStoreService.Payload(metadata, text));
+                }
+            }
+
+            HnswIndex index = new HnswIndex(m, efConstruction, efSearch, dim,
+                    regions, nodesPerRegion, nodes, entryNode, entryLevel);
+            return new Loaded(index, payloads);
+        }
+    }
+
+    /* ===================== helpers ===================== */
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    /** writeUTF 는 64KB 제한이 있어서 길이(int) + UTF-8 바이트로 저장 */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,308 @@
+package ict.project.resume.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * VectorStoreService 임베디드 구현 (HNSW, JVM 내부)
+ * - vector.store.mode=embedded 일 때만 빈 등록 → Chroma 컨테이너 없이 동작
+ * - 컬렉션별 HnswIndex 1개 + (id → 텍스트/메타데이터) 맵
+ *
+ * application.properties 예:
+ *   vector.store.mode=embedded
+ *   vector.store.hnsw.m=16
+ *   vector.store.hnsw.ef-construction=200
+ *   vector.store.hnsw.ef-search=64
+ *
+ * 영속화 (vector.store.embedded.dir 지정 시)
+ * - 기동 시 컬렉션별 최신 세그먼트({컬렉션}.{세대}.seg)를 mmap 으로 로드 → 재색인 없이 바로 검색 가능
+ * - 변경된 컬렉션만 주기적으로 새 세대 세그먼트로 스냅샷 (임시 파일 → atomic move), 종료 시 한 번 더
+ * - 톰스톤 비율이 임계치를 넘으면 살아 있는 노드만으로 인덱스를 다시 만든 뒤 교체 (검색은 멈추지 않음)
+ *   vector.store.embedded.dir=./data/vector
+ *   vector.store.embedded.snapshot-interval-sec=300
+ *   vector.store.embedded.compact-deleted-ratio=0.2
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "vector.store", name = "mode", havingValue = "embedded")
+public class HnswVectorStoreService implements VectorStoreService {
+
+    record Payload(Map<String, Object> metadata, String text) {}
+
+    static final class Collection {
+        /** 컴팩션 시 통째로 교체됨 → 검색은 항상 완성된 인덱스를 봄 */
+        volatile HnswIndex index;
+        final Map<String, Payload> payloads = new ConcurrentHashMap<>();
+        /** upsert/delete 는 read 락, 컴팩션은 write 락 (검색은 락 없음) */
+        final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+        final AtomicLong version = new AtomicLong();
+        volatile long snapshotVersion = 0;
+        volatile long generation = 0;
+
+        Collection(HnswIndex index) {
+            this.index = index;
+        }
+    }
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+    private ScheduledExecutorService snapshotter;
+
+    @Value("${vector.store.hnsw.m:16}")
+    private int m;
+
+    @Value("${vector.store.hnsw.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${vector.store.hnsw.ef-search:64}")
+    private int efSearch;
+
+    @Value("${vector.store.embedded.dir:}")
+    private String dataDir;
+
+    @Value("${vector.store.embedded.snapshot-interval-sec:300}")
+    private long snapshotIntervalSec;
+
+    @Value("${vector.store.embedded.compact-deleted-ratio:0.2}")
+    private double compactDeletedRatio;
+
+    private Path dir;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (dataDir == null || dataDir.isBlank()) return;
+        dir = Paths.get(dataDir).toAbsolutePath().normalize();
+        Files.createDirectories(dir);
+        loadSegments();
+
+        if (snapshotIntervalSec > 0) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hnsw-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            snapshotter.scheduleWithFixedDelay(this::maintain, snapshotIntervalSec, snapshotIntervalSec, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (dir == null) return;
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        collections.forEach(this::snapshotIfDirty);
+    }
+
+    @Override
+    public void ensureCollection(String name) {
+        collection(name);
+    }
+
+    @Override
+    public void upsert(String collection, String id, float[] vector, Map<String, Object> metadata, String text) {
+        Collection c = collection(collection);
+        c.gate.readLock().lock();
+        try {
+            // payload 먼저 넣어야 검색 스레드가 인덱스에서 id를 찾았을 때 항상 payload가 있음
+            c.payloads.put(id, new Payload(metadata == null ? Map.of() : metadata, text));
+            c.index.add(id, vector);
+            c.version.incrementAndGet();
+        } finally {
+            c.gate.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> query(String collection, float[] vector, int topK) {
+        return query(collection, vector, topK, efSearch);
+    }
+
+    /** efSearch 를 요청 단위로 조정 (정확도 ↔ 지연시간) */
+    public List<SearchResult> query(String collection, float[] vector, int topK, int ef) {
+        Collection c = collections.get(collection);
+        if (c == null || vector == null || vector.length == 0) return List.of();
+
+        List<HnswIndex.Hit> hits = c.index.search(vector, Math.max(1, topK), ef);
+        List<SearchResult> out = new ArrayList<>(hits.size());
+        for (HnswIndex.Hit h : hits) {
+            Payload p = c.payloads.get(h.id());
+            out.add(new SearchResult(h.id(), h.distance(),
+                    p == null ? Map.of() : p.metadata(),
+                    p == null ? null : p.text()));
+        }
+        return out;
+    }
+
+    public boolean delete(String collection, String id) {
+        Collection c = collections.get(collection);
+        if (c == null) return false;
+        c.gate.readLock().lock();
+        try {
+            boolean removed = c.index.remove(id);
+            c.payloads.remove(id);
+            if (removed) c.version.incrementAndGet();
+            return removed;
+        } finally {
+            c.gate.readLock().unlock();
+        }
+    }
+
+    public int count(String collection) {
+        Collection c = collections.get(collection);
+        return c == null ? 0 : c.index.liveCount();
+    }
+
+    private Collection collection(String name) {
+        return collections.computeIfAbsent(name, n -> {
+            log.info("embedded vector collection created: {}", n);
+            return new Collection(new HnswIndex(m, efConstruction, efSearch));
+        });
+    }
+
+    /* ===================== 스냅샷 / 컴팩션 ===================== */
+
+    /** 주기 작업: 필요하면 컴팩션 → 변경분 스냅샷 */
+    private void maintain() {
+        collections.forEach((name, c) -> {
+            try {
+                HnswIndex idx = c.index;
+                if (idx.size() > 0 && (double) (idx.size() - idx.liveCount()) / idx.size() >= compactDeletedRatio) {
+                    compact(name, c);
+                }
+                snapshotIfDirty(name, c);
+            } catch (Exception e) {
+                log.warn("embedded vector maintenance failed: collection={}, err={}", name, e.toString());
+            }
+        });
+    }
+
+    /**
+     * 살아 있는 노드만 새 인덱스로 옮긴 뒤 교체.
+     * 재구성 중에는 해당 컬렉션의 upsert/delete 만 대기하고 검색은 기존 인덱스로 계속 수행됨.
+     */
+    void compact(String name, Collection c) {
+        c.gate.writeLock().lock();
+        try {
+            HnswIndex old = c.index;
+            HnswIndex fresh = new HnswIndex(m, efConstruction, old.efSearch());
+            int n = old.size();
+            for (int node = 0; node < n; node++) {
+                HnswIndex.Node nd = old.node(node);
+                if (nd.deleted) continue;
+                fresh.add(nd.id, old.vectorOf(node));
+            }
+            c.index = fresh;
+            c.version.incrementAndGet();
+            log.info("embedded vector collection compacted: {} ({} -> {} nodes)", name, n, fresh.size());
+        } finally {
+            c.gate.writeLock().unlock();
+        }
+    }
+
+    private void snapshotIfDirty(String name, Collection c) {
+        if (dir == null) return;
+        long v = c.version.get();
+        if (v == c.snapshotVersion) return;
+
+        long gen = c.generation + 1;
+        Path target = dir.resolve(fileName(name, gen));
+        try {
+            long started = System.nanoTime();
+            HnswSegmentFile.write(target, c.index, c.payloads::get);
+            c.generation = gen;
+            c.snapshotVersion = v;
+            deleteOlderGenerations(name, gen);
+            log.info("embedded vector snapshot: {} gen={} nodes={} ({} ms)", name, gen, c.index.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            log.warn("embedded vector snapshot failed: collection={}, err={}", name, e.toString());
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        // 컬렉션별 최신 세대만 고름
+        Map<String, Long> latest = new HashMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path p : ds) {
+                String[] parsed = parseFileName(p.getFileName().toString());
+                if (parsed == null) continue;
+                latest.merge(parsed[0], Long.parseLong(parsed[1]), Math::max);
+            }
+        }
+        for (Map.Entry<String, Long> e : latest.entrySet()) {
+            String name = e.getKey();
+            long gen = e.getValue();
+            try {
+                long started = System.nanoTime();
+                HnswSegmentFile.Loaded loaded = HnswSegmentFile.read(dir.resolve(fileName(name, gen)), efSearch);
+                Collection c = new Collection(loaded.index());
+                c.payloads.putAll(loaded.payloads());
+                c.generation = gen;
+                collections.put(name, c);
+                deleteOlderGenerations(name, gen);
+                log.info("embedded vector collection loaded: {} gen={} live={} ({} ms)", name, gen,
+                        loaded.index().liveCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } catch (IOException | RuntimeException ex) {
+                log.error("embedded vector segment load failed: collection={}, gen={}", name, gen, ex);
+            }
+        }
+    }
+
+    private void deleteOlderGenerations(String name, long keep) {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path p : ds) {
+                String[] parsed = parseFileName(p.getFileName().toString());
+                if (parsed == null || !parsed[0].equals(name)) continue;
+                // mmap 중인 파일도 삭제 가능 (매핑은 unmap 될 때까지 유효)
+                if (Long.parseLong(parsed[1]) < keep) Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            log.warn("old segment cleanup failed: collection={}, err={}", name, e.toString());
+        }
+    }
+
+    /** {urlencoded 컬렉션명}.{세대}.seg */
+    private static String fileName(String collection, long gen) {
+        return URLEncoder.encode(collection, StandardCharsets.UTF_8) + "." + gen + SEGMENT_SUFFIX;
+    }
+
+    private static String[] parseFileName(String file) {
+        if (!file.endsWith(SEGMENT_SUFFIX)) return null;
+        String base = file.substring(0, file.length() - SEGMENT_SUFFIX.length());
+        int dot = base.lastIndexOf('.');
+        if (dot <= 0) return null;
+        String gen = base.substring(dot + 1);
+        if (gen.isEmpty() || !gen.chars().allMatch(Character::isDigit)) return null;
+        return new String[]{URLDecoder.decode(base.substring(0, dot), StandardCharsets.UTF_8), gen};
+    }
+}
@@ -0,0 +1,369 @@
+package ict.project.resume.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엑셀 적재를 백그라운드 작업(job)으로 실행 + 체크포인트/재개
+ * - 업로드 파일은 {ingest.jobs.dir}/{jobId}/source.xlsx 로 보관 → 재개 시 다시 업로드할 필요 없음
+ * - upsert 배치가 끝날 때마다 청크 id 를 chunks.log 에 추가(flush) → 재개 시 이 청크들은 임베딩/upsert 생략
+ * - 상태/카운터는 job.json 에 주기적으로 저장 (서버 재시작 후에도 조회/재개 가능)
+ * - 서버가 작업 도중 내려가면 재기동 시 INTERRUPTED 로 표시 → /resume 으로 이어서 실행
+ */
+@Slf4j
+@Service
+public class IngestJobService {
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED, INTERRUPTED }
+
+    /** job.json 저장 형식 */
+    record Stored(String id, String fileName, String sourceTag, int maxLen, Status status,
+                  int totalRows, int rowsCompleted, int lastCompletedRow, long chunksStored, long chunksSkipped,
+                  long createdAt, long finishedAt, String error) {}
+
+    private static final String SOURCE_FILE = "source.xlsx";
+    private static final String STATE_FILE = "job.json";
+    private static final String CHUNK_LOG = "chunks.log";
+    private static final long PERSIST_INTERVAL_MS = 1_000;
+
+    private final BulkExcelIngestService ingestService;
+    private final ObjectMapper om = new ObjectMapper();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${ingest.jobs.dir:${app.upload.root:uploads}/ingest}")
+    private String jobsDir;
+
+    /** 동시에 실행하는 적재 작업 수 (각 작업이 이미 내부적으로 병렬이므로 기본 1) */
+    @Value("${ingest.jobs.concurrency:1}")
+    private int concurrency;
+
+    private Path root;
+    private ThreadPoolExecutor runner;
+    private volatile boolean shuttingDown;
+
+    public IngestJobService(BulkExcelIngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(jobsDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        loadJobs();
+
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(1, concurrency);
+        runner = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "ingest-job-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        shuttingDown = true;
+        if (runner != null) runner.shutdownNow();
+    }
+
+    /** 업로드 파일을 작업 디렉터리에 저장하고 실행 대기열에 등록 */
+    public Map<String, Object> submit(MultipartFile file, String sourceTag, int maxLen) throws IOException {
+        String id = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        Path dir = Files.createDirectories(root.resolve(id));
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, dir.resolve(SOURCE_FILE), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Job job = new Job(id, dir, file.getOriginalFilename(), sourceTag, maxLen, System.currentTimeMillis());
+        jobs.put(id, job);
+        job.persist(om);
+        runner.execute(() -> execute(job));
+        return progress(job);
+    }
+
+    /** 실패/중단된 작업 이어서 실행 (이미 저장된 청크는 건너뜀) */
+    public Map<String, Object> resume(String id) {
+        Job job = jobs.get(id);
+        if (job == null) throw new IllegalArgumentException("존재하지 않는 작업입니다. id=" + id);
+        synchronized (job) {
+            if (job.status == Status.QUEUED || job.status == Status.RUNNING) {
+                throw new IllegalStateException("이미 실행 중인 작업입니다. id=" + id);
+            }
+            if (job.status == Status.DONE) {
+                throw new IllegalStateException("이미 완료된 작업입니다. id=" + id);
+            }
+            job.status = Status.QUEUED;
+            job.error = null;
+        }
+        job.persist(om);
+        runner.execute(() -> execute(job));
+        return progress(job);
+    }
+
+    public Optional<Map<String, Object>> status(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(this::progress);
+    }
+
+    /** 최근 작업부터 */
+    public List<Map<String, Object>> list() {
+        List<Job> all = new ArrayList<>(jobs.values());
+        all.sort(Comparator.comparingLong((Job j) -> j.createdAt).reversed());
+        List<Map<String, Object>> out = new ArrayList<>(all.size());
+        for (Job j : all) out.add(progress(j));
+        return out;
+    }
+
+    /* ===================== 실행 ===================== */
+
+    private void execute(Job job) {
+        try {
+            Set<String> stored = job.loadStoredChunks();
+            job.start(stored.size());
+            job.persist(om);
+            if (job.totalRows <= 0) job.totalRows = XlsxRowReader.countRows(job.dir.resolve(SOURCE_FILE));
+
+            try (BufferedWriter chunkLog = Files.newBufferedWriter(job.dir.resolve(CHUNK_LOG), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                ingestService.ingest(job.dir.resolve(SOURCE_FILE), job.sourceTag, job.maxLen,
+                        new Checkpointer(job, stored, chunkLog));
+            }
+            job.finish(Status.DONE, null);
+            log.info("Ingest job {} done. rows={}, chunks={}, skipped={}",
+                    job.id, job.rowsCompleted.get(), job.chunksStored.sum(), job.chunksSkipped);
+        } catch (Exception e) {
+            Status s = shuttingDown ? Status.INTERRUPTED : Status.FAILED;
+            job.finish(s, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            log.warn("Ingest job {} {}: {}", job.id, s, job.error);
+        } finally {
+            job.persist(om);
+        }
+    }
+
+    /** 파이프라인 콜백 → 체크포인트 기록 */
+    private final class Checkpointer implements BulkIngestPipeline.Listener {
+        private final Job job;
+        private final Set<String> stored;
+        private final BufferedWriter chunkLog;
+
+        Checkpointer(Job job, Set<String> stored, BufferedWriter chunkLog) {
+            this.job = job;
+            this.stored = stored;
+            this.chunkLog = chunkLog;
+        }
+
+        @Override
+        public boolean alreadyStored(String chunkId) {
+            boolean hit = stored.contains(chunkId);
+            if (hit) job.runSkipped.increment();
+            return hit;
+        }
+
+        @Override
+        public void chunksStored(List<String> chunkIds) {
+            // upsert 가 끝난 청크만 기록 → 여기까지가 커밋된 지점
+            synchronized (chunkLog) {
+                try {
+                    for (String id : chunkIds) {
+                        chunkLog.write(id);
+                        chunkLog.newLine();
+                    }
+                    chunkLog.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException("checkpoint write failed: " + e.getMessage(), e);
+                }
+            }
+            job.chunksStored.add(chunkIds.size());
+        }
+
+        @Override
+        public void rowCompleted(int rowIndex, String essayId, int chunks) {
+            job.rowsCompleted.incrementAndGet();
+            job.runRows.increment();
+            job.lastCompletedRow.accumulateAndGet(rowIndex, Math::max);
+            job.persistThrottled(om);
+        }
+    }
+
+    /* ===================== 상태 ===================== */
+
+    private Map<String, Object> progress(Job job) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        m.put("jobId", job.id);
+        m.put("status", job.status);
+        m.put("fileName", job.fileName);
+        m.put("sourceTag", job.sourceTag);
+        m.put("maxLen", job.maxLen);
+        m.put("totalRows", job.totalRows);
+        m.put("rowsCompleted", job.rowsCompleted.get());
+        m.put("lastCompletedRow", job.lastCompletedRow.get());
+        m.put("chunksStored", job.chunksStored.sum());
+        m.put("chunksSkipped", job.chunksSkipped + job.runSkipped.sum());
+
+        // 속도/ETA 는 이번 실행분 기준 (재개 시 건너뛴 행은 제외)
+        long end = job.finishedAt > 0 ? job.finishedAt : now;
+        long elapsed = job.runStartedAt > 0 ? Math.max(1, end - job.runStartedAt) : 0;
+        double rowsPerSec = elapsed > 0 ? job.runRows.sum() * 1000.0 / elapsed : 0.0;
+        m.put("elapsedMs", elapsed);
+        m.put("rowsPerSec", Math.round(rowsPerSec * 100) / 100.0);
+        int remaining = Math.max(0, job.totalRows - job.rowsCompleted.get());
+        m.put("etaSec", job.status == Status.RUNNING && rowsPerSec > 0 ? Math.round(remaining / rowsPerSec) : null);
+        m.put("percent", job.totalRows > 0
+                ? Math.min(100.0, Math.round(job.rowsCompleted.get() * 1000.0 / job.totalRows) / 10.0) : null);
+        if (job.error != null) m.put("error", job.error);
+        return m;
+    }
+
+    /** 재기동 시 기존 작업 목록 복원 (실행 중이던 작업은 INTERRUPTED) */
+    private void loadJobs() throws IOException {
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                Path state = dir.resolve(STATE_FILE);
+                if (!Files.isRegularFile(state)) continue;
+                try {
+                    Stored s = om.readValue(state.toFile(), Stored.class);
+                    Job job = Job.restore(dir, s);
+                    if (job.status == Status.QUEUED || job.status == Status.RUNNING) {
+                        job.status = Status.INTERRUPTED;
+                        job.persist(om);
+                    }
+                    jobs.put(job.id, job);
+                } catch (IOException e) {
+                    log.warn("Ingest job state unreadable, skipped: {} ({})", state, e.getMessage());
+                }
+            }
+        }
+        if (!jobs.isEmpty()) log.info("Ingest jobs restored: {}", jobs.size());
+    }
+
+    /** 실행 중 상태 (카운터는 워커 스레드에서 갱신) */
+    private static final class Job {
+        final String id;
+        final Path dir;
+        final String fileName;
+        final String sourceTag;
+        final int maxLen;
+        final long createdAt;
+
+        volatile Status status = Status.QUEUED;
+        volatile int totalRows;
+        volatile String error;
+        volatile long runStartedAt;
+        volatile long finishedAt;
+        volatile long lastPersist;
+
+        final AtomicInteger rowsCompleted = new AtomicInteger();
+        final AtomicInteger lastCompletedRow = new AtomicInteger();
+        final LongAdder chunksStored = new LongAdder();
+        /** 이전 실행까지 건너뛴 청크 수 */
+        volatile long chunksSkipped;
+
+        // 이번 실행분 (속도 계산용)
+        final LongAdder runRows = new LongAdder();
+        final LongAdder runSkipped = new LongAdder();
+
+        Job(String id, Path dir, String fileName, String sourceTag, int maxLen, long createdAt) {
+            this.id = id;
+            this.dir = dir;
+            this.fileName = fileName;
+            this.sourceTag = sourceTag;
+            this.maxLen = maxLen;
+            this.createdAt = createdAt;
+        }
+
+        static Job restore(Path dir, Stored s) {
+            Job j = new Job(s.id(), dir, s.fileName(), s.sourceTag(), s.maxLen(), s.createdAt());
+            j.status = s.status();
+            j.totalRows = s.totalRows();
+            j.error = s.error();
+            j.finishedAt = s.finishedAt();
+            j.rowsCompleted.set(s.rowsCompleted());
+            j.lastCompletedRow.set(s.lastCompletedRow());
+            j.chunksStored.add(s.chunksStored());
+            j.chunksSkipped = s.chunksSkipped();
+            return j;
+        }
+
+        /** chunks.log → 이미 upsert 된 청크 id (재개 시 건너뜀) */
+        Set<String> loadStoredChunks() throws IOException {
+            Path logFile = dir.resolve(CHUNK_LOG);
+            Set<String> ids = new HashSet<>();
+            if (!Files.isRegularFile(logFile)) return ids;
+            try (var lines = Files.lines(logFile, StandardCharsets.UTF_8)) {
+                lines.filter(l -> !l.isBlank()).forEach(ids::add);
+            }
+            return ids;
+        }
+
+        /** 실행 시작: 행 카운터는 재개 시 처음부터 다시 셈 (완료된 행도 rowCompleted 로 다시 보고됨) */
+        void start(int storedChunks) {
+            chunksSkipped += runSkipped.sumThenReset();
+            runRows.reset();
+            rowsCompleted.set(0);
+            lastCompletedRow.set(0);
+            chunksStored.reset();
+            chunksStored.add(storedChunks);
+            status = Status.RUNNING;
+            runStartedAt = System.currentTimeMillis();
+            finishedAt = 0;
+            error = null;
+        }
+
+        void finish(Status s, String err) {
+            status = s;
+            error = err;
+            finishedAt = System.currentTimeMillis();
+        }
+
+        void persistThrottled(ObjectMapper om) {
+            long now = System.currentTimeMillis();
+            if (now - lastPersist < PERSIST_INTERVAL_MS) return;
+            persist(om);
+        }
+
+        /** 임시 파일에 쓴 뒤 원자적 교체 (쓰는 도중 죽어도 이전 상태 유지) */
+        synchronized void persist(ObjectMapper om) {
+            lastPersist = System.currentTimeMillis();
+            Stored s = new Stored(id, fileName, sourceTag, maxLen, status, totalRows, rowsCompleted.get(),
+                    lastCompletedRow.get(), chunksStored.sum(), chunksSkipped + runSkipped.sum(),
+                    createdAt, finishedAt, error);
+            try {
+                Path tmp = Files.createTempFile(dir, "job-", ".tmp");
+                om.writeValue(tmp.toFile(), s);
+                Files.move(tmp, dir.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.warn("Ingest job state write failed: {} ({})", id, e.getMessage());
+            }
+        }
+    }
+}
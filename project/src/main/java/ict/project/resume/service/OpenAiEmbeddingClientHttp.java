@@ -92,6 +92,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -133,7 +134,9 @@ public class OpenAiEmbeddingClientHttp implements OpenAiEmbeddingClient {
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> data = (List<Map<String, Object>>) resp.get("data");
 
-        List<float[]> out = new ArrayList<>();
+        // 배치 입력일 때 응답 순서를 보장하지 않으므로 data[].index 자리에 채움
+        float[][] slots = new float[data.size()][];
+        int seq = 0;
         for (Map<String, Object> d : data) {
             // ❌ (Map<String,Object>) d.get("embedding")  -> 잘못된 캐스팅
             @SuppressWarnings("unchecked")
@@ -142,9 +145,11 @@ public class OpenAiEmbeddingClientHttp implements OpenAiEmbeddingClient {
             for (int i = 0; i < emb.size(); i++) {
                 vec[i] = emb.get(i).floatValue();
             }
-            out.add(vec);
+            int idx = (d.get("index") instanceof Number n) ? n.intValue() : seq;
+            slots[(idx >= 0 && idx < slots.length) ? idx : seq] = vec;
+            seq++;
         }
-        return out;
+        return new ArrayList<>(Arrays.asList(slots));
     }
 
 }
@@ -1,21 +1,32 @@
 package ict.project.resume.service;
 
+import ict.project.resume.config.RagProperties;
 import ict.project.resume.entity.RagChunkEntity;
 import ict.project.resume.entity.RagSettingsEntity;
+import ict.project.resume.repository.RagChunkJdbcWriter;
 import ict.project.resume.repository.RagChunkRepository;
 import ict.project.resume.repository.RagSettingsRepository;
 import ict.project.user.UserEntity;
 import ict.project.user.UserRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 @Slf4j
@@ -26,16 +37,37 @@ public class RagService {
     private final RagChunkRepository ragChunkRepository;
     private final RagSettingsRepository ragSettingsRepository;
     private final UserRepository userRepository;
+    private final TokenCounter tokenCounter;
+    private final RagChunkJdbcWriter chunkWriter;
+    private final ChunkingEngine chunkingEngine;
 
-    /** 전역 코퍼스를 저장할 관리자 User.id (application.properties) */
-    @Value("${app.rag.admin-user-id:1}")
-    private Integer adminUserId;
+    /** app.rag.* (관리자 id, 캐시 TTL, 청크/색인 상한) */
+    private final RagProperties props;
 
-    /** 청크 분할 기본값 (문자 기준) */
+    /**
+     * 지침 문자열 + 전역 코퍼스 BM25 색인은 모든 사용자에게 동일 → 한 번 만들어 재사용
+     * - 코퍼스 등록/삭제, 프롬프트 생성 시 커밋 후 무효화 (세대 증가)
+     * - DB 를 직접 수정하는 경우를 위해 TTL 도 둠
+     * - 재구성은 전용 스레드에서 한 번에 하나만, 끝날 때까지는 이전 값을 그대로 사용
+     */
+    private record PromptPrefix(String header, int headerTokens, CorpusIndex corpus, long generation, long builtAt) {}
+
+    private final AtomicReference<PromptPrefix> promptPrefix = new AtomicReference<>();
+    /** 무효화 세대: 이전 세대로 만든 값은 다음 요청에서 재구성 대상 */
+    private final AtomicLong promptPrefixGeneration = new AtomicLong();
+    /** 진행 중인 재구성 (single-flight) */
+    private final AtomicReference<CompletableFuture<PromptPrefix>> promptPrefixRebuild = new AtomicReference<>();
+    private final ExecutorService promptPrefixBuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "rag-prompt-prefix");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** 청크 문자 상한 (토큰 상한은 app.rag.chunk-max-tokens) */
     private static final int MAX_CHARS_PER_CHUNK = 1500;
 
-    /** ✅ 프롬프트 전체 상한(문자). 대략 1토큰≈4문자 가정 → 120k chars ≈ 30k tokens */
-    private static final int MAX_PROMPT_CHARS = 120_000;
+    /** ✅ 프롬프트 전체 상한(토큰, 채팅 모델 인코딩 기준 — TokenCounter) */
+    private static final int MAX_PROMPT_TOKENS = 30_000;
 
     /** ✅ 섹션별 최대 청크 수 (필요시 조정) */
     private static final int MAX_CORPUS_CHUNKS  = 8;
@@ -46,63 +78,191 @@ public class RagService {
     /* ======= 공용 유틸 영역 ======= */
     /* ============================= */
 
+    /** 문장 경계 + 문자/토큰 상한 + 겹침 (ChunkingEngine, 인제스트 Chunker 와 같은 규칙) */
     private List<String> splitToChunks(String content, int maxChars) {
-        List<String> out = new ArrayList<>();
-        if (content == null) return out;
-
-        String normalized = content.replaceAll("\\r", "");
-        int len = normalized.length();
-        for (int i = 0; i < len; i += maxChars) {
-            int end = Math.min(len, i + maxChars);
-            String piece = normalized.substring(i, end).trim();
-            if (!piece.isEmpty()) out.add(piece);
-        }
-        return out;
+        return chunkingEngine.chunk(content, new ChunkingEngine.Options(maxChars, props.getChunkMaxTokens(), props.getChunkOverlapTokens()));
     }
 
-    private Optional<UserEntity> getAdminUserIfConfigured() {
-        if (adminUserId == null || adminUserId <= 0) return Optional.empty();
-        return userRepository.findById(adminUserId);
+    /**
+     * 섹션에 쓸 본문만 앞에서부터 limit 개 조회 (content 프로젝션 + LIMIT)
+     * - 빈 본문은 건너뛰므로 여유분을 조금 더 가져옴
+     */
+    private List<String> sectionContents(Integer userId, String source, int limit) {
+        return ragChunkRepository.findContents(userId, source, PageRequest.of(0, limit + 2));
     }
 
-    /** ✅ 남은 예산 안에서 청크를 append. 초과 시 자르고, 섹션별 개수 제한. */
+    /**
+     * ✅ 남은 토큰 예산 안에서 청크를 append. 초과 시 자르고, 섹션별 개수 제한.
+     * - 조각마다 "\n\n" 으로 끝나서 조각 경계에서 BPE 병합이 거의 없음 → 조각별 토큰 수 합 ≈ 전체 토큰 수
+     * @return 사용한 토큰 수
+     */
     private int appendChunksCapped(StringBuilder sb,
-                                   List<RagChunkEntity> chunks,
+                                   List<String> chunks,
                                    String sectionTitle,
                                    int maxChunks,
                                    int remainingBudget) {
         if (chunks == null || chunks.isEmpty() || remainingBudget <= 0) return 0;
 
-        int used = 0;
-        sb.append("## [").append(sectionTitle).append("]\n");
+        String title = "## [" + sectionTitle + "]\n";
+        int used = tokenCounter.count(title);
+        sb.append(title);
         int count = 0;
 
-        for (RagChunkEntity c : chunks) {
+        for (String text : chunks) {
             if (count >= maxChunks || remainingBudget - used <= 0) break;
 
-            String text = c.getContent();
             if (text == null || text.isBlank()) continue;
             String line = "- " + text + "\n\n";
 
             int room = remainingBudget - used;
-            if (line.length() <= room) {
+            int tokens = tokenCounter.count(line);
+            if (tokens <= room) {
                 sb.append(line);
-                used += line.length();
+                used += tokens;
             } else {
                 // 마지막 남은 예산만큼 잘라서 붙이고 종료
-                sb.append(line, 0, Math.max(0, room));
-                used += Math.max(0, room);
+                sb.append(tokenCounter.truncate("rag.chunk", line, room));
+                used += room;
                 break;
             }
             count++;
         }
 
         if (count == 0) {
-            sb.append("(데이터가 없습니다.)\n\n");
+            String empty = "(데이터가 없습니다.)\n\n";
+            sb.append(empty);
+            used += tokenCounter.count(empty);
         }
         return used;
     }
 
+    /**
+     * 캐시된 지침 + 코퍼스 색인
+     * - 만료/무효화됐으면 백그라운드 재구성을 걸고 이전 값을 바로 반환 (요청 경로에서 코퍼스를 읽지 않음)
+     * - 캐시가 아예 없을 때(기동 직후)만 재구성이 끝나기를 기다림
+     */
+    private PromptPrefix promptPrefix() {
+        PromptPrefix cached = promptPrefix.get();
+        if (cached != null && isFresh(cached)) return cached;
+
+        CompletableFuture<PromptPrefix> rebuild = rebuildPromptPrefix();
+        if (cached != null) return cached;
+        try {
+            return rebuild.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    private boolean isFresh(PromptPrefix p) {
+        long ttlSec = props.getPromptPrefixTtlSec();
+        return p.generation() == promptPrefixGeneration.get()
+                && (ttlSec <= 0 || System.currentTimeMillis() - p.builtAt() < ttlSec * 1000);
+    }
+
+    /** 진행 중인 재구성이 있으면 그것을, 없으면 새로 시작 */
+    private CompletableFuture<PromptPrefix> rebuildPromptPrefix() {
+        while (true) {
+            CompletableFuture<PromptPrefix> running = promptPrefixRebuild.get();
+            if (running != null) return running;
+            CompletableFuture<PromptPrefix> mine = new CompletableFuture<>();
+            if (!promptPrefixRebuild.compareAndSet(null, mine)) continue;
+
+            long generation = promptPrefixGeneration.get();
+            try {
+                promptPrefixBuilder.execute(() -> {
+                    try {
+                        PromptPrefix built = buildPromptPrefix(generation);
+                        // 더 새 세대 값이 이미 들어가 있으면 덮어쓰지 않음
+                        promptPrefix.accumulateAndGet(built, (cur, b) -> cur == null || cur.generation() <= b.generation() ? b : cur);
+                        mine.complete(built);
+                    } catch (Throwable t) {
+                        log.warn("prompt prefix rebuild failed: {}", t.getMessage());
+                        mine.completeExceptionally(t);
+                    } finally {
+                        promptPrefixRebuild.compareAndSet(mine, null);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                promptPrefixRebuild.compareAndSet(mine, null);
+                mine.completeExceptionally(e);
+            }
+            return mine;
+        }
+    }
+
+    private PromptPrefix buildPromptPrefix(long generation) {
+        RagSettingsEntity prompt = ragSettingsRepository.findByName("resume_feedback")
+                .orElseThrow(() -> new IllegalStateException("resume_feedback 프롬프트가 세팅되지 않았습니다."));
+        String header = prompt.getPromptText() + "\n\n";
+        CorpusIndex corpus = loadCorpusIndex();
+        return new PromptPrefix(header, tokenCounter.count(header), corpus, generation, System.currentTimeMillis());
+    }
+
+    /**
+     * 전역 CORPUS (관리자) 본문을 rag_id 키셋 페이지로 읽어 BM25 색인 구성
+     * - OFFSET 페이징과 달리 뒤쪽 페이지도 인덱스에서 바로 이어 읽음
+     * - corpus-index-max-chunks 를 넘는 청크는 색인에서 빠지므로 경고 로그
+     */
+    private CorpusIndex loadCorpusIndex() {
+        Integer adminUserId = props.getAdminUserId();
+        int max = props.getCorpusIndexMaxChunks();
+        if (adminUserId == null || adminUserId <= 0 || max <= 0) return CorpusIndex.EMPTY;
+
+        int pageSize = Math.min(1000, max);
+        List<String> contents = new ArrayList<>();
+        int after = 0;
+        while (contents.size() < max) {
+            List<RagChunkRepository.ContentRow> batch =
+                    ragChunkRepository.findContentsAfter(adminUserId, "CORPUS", after, PageRequest.of(0, pageSize));
+            for (RagChunkRepository.ContentRow row : batch) {
+                after = row.getRagId();
+                String c = row.getContent();
+                if (c != null && !c.isBlank()) contents.add(c);
+                if (contents.size() >= max) break;
+            }
+            if (batch.size() < pageSize) break;
+        }
+        if (contents.size() >= max) {
+            long total = ragChunkRepository.countByUserIdAndSource(adminUserId, "CORPUS");
+            if (total > max) {
+                log.warn("corpus index truncated: indexed {} of {} CORPUS chunks (app.rag.corpus-index-max-chunks={})",
+                        contents.size(), total, max);
+            }
+        }
+        CorpusIndex index = CorpusIndex.build(contents);
+        log.info("corpus index built: chunks={}", index.size());
+        return index;
+    }
+
+    /**
+     * 프롬프트 앞부분 캐시 무효화
+     * - 트랜잭션 안이면 커밋 후에 (커밋 전에 비우면 다른 요청이 이전 데이터로 다시 채울 수 있음)
+     */
+    public void invalidatePromptPrefix() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearPromptPrefix();
+                }
+            });
+        } else {
+            clearPromptPrefix();
+        }
+    }
+
+    /** 세대만 올림 → 다음 요청이 재구성을 걸고, 끝날 때까지는 이전 값 사용 */
+    private void clearPromptPrefix() {
+        promptPrefixGeneration.incrementAndGet();
+    }
+
+    @PreDestroy
+    void shutdownPromptPrefixBuilder() {
+        promptPrefixBuilder.shutdownNow();
+    }
+
     /* ========================================= */
     /* ======= rag_settings (프롬프트) 영역 ======= */
     /* ========================================= */
@@ -115,6 +275,7 @@ public class RagService {
             s.setName("resume_feedback");
             s.setPromptText("합격자 자소서들이야 이걸 토대로 앞으로의 사용자들의 자소서를 피드백해줘");
             s.setUpdatedAt(LocalDateTime.now());
+            invalidatePromptPrefix();
             return ragSettingsRepository.save(s);
         });
     }
@@ -130,33 +291,21 @@ public class RagService {
     /* ======= CORPUS(전역) 관련 공개 메서드 ======= */
     /* ========================================= */
 
+    /** 청크 분할 후 multi-row INSERT IGNORE 로 저장 (중복은 건너뛰고 개수만 보고) */
     @Transactional
-    public List<RagChunkEntity> registerCorpusChunks(Integer adminUserId, String filePath, String content) {
+    public RagChunkJdbcWriter.Result registerCorpusChunks(Integer adminUserId, String filePath, String content) {
         if (adminUserId == null || adminUserId <= 0) {
             throw new IllegalArgumentException("관리자 ID가 올바르지 않습니다.");
         }
-        UserEntity admin = userRepository.findById(adminUserId)
-                .orElseThrow(() -> new IllegalStateException("관리자 사용자가 존재하지 않습니다. id=" + adminUserId));
+        if (!userRepository.existsById(adminUserId)) {
+            throw new IllegalStateException("관리자 사용자가 존재하지 않습니다. id=" + adminUserId);
+        }
 
         List<String> chunks = splitToChunks(content, MAX_CHARS_PER_CHUNK);
-        List<RagChunkEntity> saved = new ArrayList<>();
-
-        for (String chunk : chunks) {
-            RagChunkEntity entity = new RagChunkEntity();
-            entity.setUser(admin);
-            entity.setSource("CORPUS");
-            entity.setFilePath(filePath);
-            entity.setContent(chunk);
-            entity.setEmbeddingJson("[]"); // 임시
-            entity.setCreatedAt(LocalDateTime.now());
-
-            try {
-                saved.add(ragChunkRepository.save(entity));
-            } catch (Exception e) {
-                log.warn("중복 또는 저장 실패로 스킵: {}", e.getMessage());
-            }
-        }
-        return saved;
+        RagChunkJdbcWriter.Result result = chunkWriter.insertChunks(adminUserId, "CORPUS", filePath, chunks);
+        if (result.skipped() > 0) log.info("중복 코퍼스 청크 스킵: {}건", result.skipped());
+        if (result.inserted() > 0) invalidatePromptPrefix();
+        return result;
     }
 
     @Transactional
@@ -174,11 +323,12 @@ public class RagService {
         if (adminUserId == null || adminUserId <= 0) {
             throw new IllegalArgumentException("관리자 ID가 올바르지 않습니다.");
         }
-        UserEntity admin = userRepository.findById(adminUserId)
-                .orElseThrow(() -> new IllegalStateException("관리자 사용자가 존재하지 않습니다. id=" + adminUserId));
-        List<RagChunkEntity> all = ragChunkRepository.findByUserAndSource(admin, "CORPUS");
-        ragChunkRepository.deleteAllInBatch(all);
-        return all.size();
+        if (!userRepository.existsById(adminUserId)) {
+            throw new IllegalStateException("관리자 사용자가 존재하지 않습니다. id=" + adminUserId);
+        }
+        int deleted = ragChunkRepository.deleteByUserIdAndSource(adminUserId, "CORPUS");
+        if (deleted > 0) invalidatePromptPrefix();
+        return deleted;
     }
 
     /* ========================================= */
@@ -197,91 +347,76 @@ public class RagService {
      */
     @Transactional
     public String buildFeedbackPrompt(Integer userId, boolean includePosting) {
-        RagSettingsEntity prompt = ragSettingsRepository.findByName("resume_feedback")
-                .orElseThrow(() -> new IllegalStateException("resume_feedback 프롬프트가 세팅되지 않았습니다."));
-
-        StringBuilder sb = new StringBuilder(Math.min(2048, MAX_PROMPT_CHARS));
-        int used = 0;
+        PromptPrefix prefix = promptPrefix();
 
-        // (0) 시스템 지침
-        String header = prompt.getPromptText() + "\n\n";
-        if (header.length() > MAX_PROMPT_CHARS) {
-            sb.append(header, 0, MAX_PROMPT_CHARS);
-            return sb.toString();
+        // (0) 시스템 지침 (캐시)
+        String header = prefix.header();
+        if (prefix.headerTokens() >= MAX_PROMPT_TOKENS) {
+            tokenCounter.record("rag.prompt", MAX_PROMPT_TOKENS);
+            return tokenCounter.truncate("rag.header", header, MAX_PROMPT_TOKENS);
         }
+        StringBuilder sb = new StringBuilder(2048);
         sb.append(header);
-        used += header.length();
 
-        int budget = MAX_PROMPT_CHARS - used;
+        int used = prefix.headerTokens();
+        int budget = MAX_PROMPT_TOKENS - used;
 
-        // (A) 전역 CORPUS (관리자)
         if (budget > 0) {
-            getAdminUserIfConfigured().ifPresent(admin -> {
-                List<RagChunkEntity> corpus = ragChunkRepository.findByUserAndSource(admin, "CORPUS");
-                // 필요시 최신/파일별 정렬 등 추가 가능
-                int added = appendChunksCapped(sb, corpus, "전역 코퍼스", MAX_CORPUS_CHUNKS, MAX_PROMPT_CHARS - sb.length());
-                log.debug("append corpus used chars={}", added);
-            });
-        }
+            if (!userRepository.existsById(userId)) {
+                throw new IllegalArgumentException("존재하지 않는 사용자입니다. id=" + userId);
+            }
+            List<String> resumes = sectionContents(userId, "RESUME", MAX_RESUME_CHUNKS);
 
-        // (B) 사용자 RESUME
-        if (budget > 0) {
-            UserEntity user = userRepository.findById(userId)
-                    .orElseThrow(() -> new IllegalArgumentException("존재하지 않는 사용자입니다. id=" + userId));
-            List<RagChunkEntity> resumes = ragChunkRepository.findByUserAndSource(user, "RESUME");
-            int added = appendChunksCapped(sb, resumes, "사용자 이력서", MAX_RESUME_CHUNKS, MAX_PROMPT_CHARS - sb.length());
-            log.debug("append resume used chars={}", added);
+            // (A) 전역 CORPUS: 사용자 이력서와 BM25 점수가 높은 청크부터 (이력서가 없으면 저장 순서)
+            List<String> corpus = prefix.corpus().top(String.join("\n", resumes), MAX_CORPUS_CHUNKS);
+            int added = appendChunksCapped(sb, corpus, "전역 코퍼스", MAX_CORPUS_CHUNKS, MAX_PROMPT_TOKENS - used);
+            used += added;
+            log.debug("append corpus used tokens={}", added);
+
+            // (B) 사용자 RESUME
+            added = appendChunksCapped(sb, resumes, "사용자 이력서", MAX_RESUME_CHUNKS, MAX_PROMPT_TOKENS - used);
+            used += added;
+            log.debug("append resume used tokens={}", added);
 
             // (C) 사용자 POSTING (옵션)
-            if (includePosting && (MAX_PROMPT_CHARS - sb.length()) > 0) {
-                List<RagChunkEntity> postings = ragChunkRepository.findByUserAndSource(user, "POSTING");
-                added = appendChunksCapped(sb, postings, "사용자 채용공고", MAX_POSTING_CHUNKS, MAX_PROMPT_CHARS - sb.length());
-                log.debug("append posting used chars={}", added);
+            if (includePosting && (MAX_PROMPT_TOKENS - used) > 0) {
+                List<String> postings = sectionContents(userId, "POSTING", MAX_POSTING_CHUNKS);
+                added = appendChunksCapped(sb, postings, "사용자 채용공고", MAX_POSTING_CHUNKS, MAX_PROMPT_TOKENS - used);
+                used += added;
+                log.debug("append posting used tokens={}", added);
             }
         }
 
         // 남은 예산 0이면 더 이상 붙이지 않음
-        return sb.substring(0, Math.min(sb.length(), MAX_PROMPT_CHARS));
+        tokenCounter.record("rag.prompt", used);
+        return sb.toString();
     }
 
     /* ========================= 저장 유틸 ========================= */
 
     @Transactional
-    public List<RagChunkEntity> registerUserChunks(Integer userId, String source, String filePath, String content) {
+    public RagChunkJdbcWriter.Result registerUserChunks(Integer userId, String source, String filePath, String content) {
         if (userId == null || userId <= 0) {
             throw new IllegalArgumentException("userId가 올바르지 않습니다.");
         }
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalStateException("사용자가 존재하지 않습니다. id=" + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalStateException("사용자가 존재하지 않습니다. id=" + userId);
+        }
 
+        // source: "RESUME" / "POSTING" 등
         List<String> chunks = splitToChunks(content, MAX_CHARS_PER_CHUNK);
-        List<RagChunkEntity> saved = new ArrayList<>();
-
-        for (String chunk : chunks) {
-            RagChunkEntity e = new RagChunkEntity();
-            e.setUser(user);
-            e.setSource(source);          // "RESUME" / "POSTING" 등
-            e.setFilePath(filePath);
-            e.setContent(chunk);
-            e.setEmbeddingJson("[]");     // 임시(임베딩 미적용)
-            e.setCreatedAt(LocalDateTime.now());
-
-            try {
-                saved.add(ragChunkRepository.save(e));
-            } catch (Exception ex) {
-                log.warn("RAG 저장 스킵(중복/오류): {}", ex.getMessage());
-            }
-        }
-        return saved;
+        RagChunkJdbcWriter.Result result = chunkWriter.insertChunks(userId, source, filePath, chunks);
+        if (result.skipped() > 0) log.info("RAG 저장 스킵(중복): {}건", result.skipped());
+        return result;
     }
 
     @Transactional
-    public List<RagChunkEntity> registerResumeChunks(Integer userId, String filePath, String content) {
+    public RagChunkJdbcWriter.Result registerResumeChunks(Integer userId, String filePath, String content) {
         return registerUserChunks(userId, "RESUME", filePath, content);
     }
 
     @Transactional
-    public List<RagChunkEntity> registerResumeChunks(Integer userId,
+    public RagChunkJdbcWriter.Result registerResumeChunks(Integer userId,
                                                      ict.project.resume.entity.ResumeEntity saved,
                                                      String content,
                                                      String source) {
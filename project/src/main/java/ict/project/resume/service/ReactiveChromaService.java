@@ -0,0 +1,328 @@
+package ict.project.resume.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chroma v2 REST 클라이언트 (논블로킹, Mono 반환)
+ * - 호출 스레드를 잡지 않으므로 여러 벡터 작업을 동시에 걸어둘 수 있음 (zip/flatMap)
+ * - 블로킹이 필요한 기존 호출부는 ChromaService(얇은 .block() 어댑터)를 그대로 사용
+ */
+@Slf4j
+@Service
+public class ReactiveChromaService {
+
+    /** 컬렉션 id 로 요청했는데 404 → 컬렉션이 삭제/재생성됨 (캐시된 id 무효) */
+    public static class CollectionNotFoundException extends RuntimeException {
+        public CollectionNotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    private final WebClient chroma;
+    private final ChromaCollectionCache collectionCache;
+
+    @Value("${chroma.tenant:default_tenant}")
+    private String tenant;
+
+    @Value("${chroma.database:default_db}")
+    private String database;
+
+    public ReactiveChromaService(@Qualifier("chromaWebClient") WebClient chroma, ChromaCollectionCache collectionCache) {
+        this.chroma = chroma;
+        this.collectionCache = collectionCache;
+    }
+
+    /* =======================
+     * Collections
+     * ======================= */
+
+    /** 컬렉션 정보 조회 (404면 존재하지 않음) */
+    public Mono<Map<String, Object>> getCollectionInfo(String collectionId) {
+        return chroma.get()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}", tenant, database, collectionId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.warn("get collection info error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("get collection " + resp.statusCode() + ": " + body);
+                        })
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
+    /* =======================
+     * Write (add/upsert)
+     * ======================= */
+
+    /**
+     * 단건 upsert 유사 동작 (v2 API에선 보통 /add 사용)
+     * - 기존 id가 있으면 교체/갱신이 아닌 append 동작일 수 있으므로,
+     *   진짜 upsert가 필요하면 사전에 delete 후 add 하는 로직을 별도로 구현하세요.
+     */
+    public Mono<Void> upsert(String collectionId,
+                             String id,
+                             String document,
+                             List<Float> embedding,
+                             Map<String, Object> metadata) {
+
+        Map<String, Object> payload = Map.of(
+                "ids", Collections.singletonList(id),
+                "documents", Collections.singletonList(document),
+                "metadatas", Collections.singletonList(metadata == null ? Map.of() : metadata),
+                "embeddings", Collections.singletonList(embedding == null ? List.of() : embedding)
+        );
+
+        return chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/add", tenant, database, collectionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.error("Chroma add error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("Chroma add failed: " + body);
+                        })
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .then();
+    }
+
+    public Mono<Void> upsertBatch(String collectionId,
+                                  List<String> ids,
+                                  List<String> documents,
+                                  List<List<Float>> embeddings,
+                                  List<Map<String, Object>> metadatas) {
+
+        Map<String, Object> payload = Map.of(
+                "ids", ids,
+                "documents", documents,
+                "metadatas", metadatas,
+                "embeddings", embeddings
+        );
+
+        return chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/add", tenant, database, collectionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .then();
+    }
+
+
+    /**
+     * 진짜 upsert (/upsert): 같은 id 가 있으면 문서/임베딩/메타데이터를 교체
+     * - 재임베딩 백필처럼 기존 레코드를 덮어써야 할 때 사용 (/add 는 기존 id 를 건너뜀)
+     */
+    public Mono<Void> replaceBatch(String collectionId,
+                                   List<String> ids,
+                                   List<String> documents,
+                                   List<List<Float>> embeddings,
+                                   List<Map<String, Object>> metadatas) {
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("ids", ids);
+        payload.put("embeddings", embeddings);
+        if (documents != null) payload.put("documents", documents);
+        if (metadatas != null) payload.put("metadatas", metadatas);
+
+        return chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/upsert", tenant, database, collectionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.error("Chroma upsert error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("Chroma upsert failed: " + body);
+                        })
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .then();
+    }
+
+
+    /* =======================
+     * Read (get by page)
+     * ======================= */
+
+    /**
+     * 페이지네이션 조회
+     * - where / where_document는 필요할 때만 보냄 (빈 객체 금지)
+     */
+    public Mono<Map<String, Object>> getByPage(String collectionId, int limit, int offset) {
+        Map<String, Object> payload = Map.of(
+                "limit", limit,
+                "offset", offset,
+                "include", List.of("documents", "metadatas", "distances")
+        );
+
+        return chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/get", tenant, database, collectionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.error("Chroma GET error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("Chroma get failed: " + body);
+                        })
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
+    /**
+     * 범위 조회: include 를 호출부가 지정 (백필처럼 필요한 필드만 받아서 응답 크기를 줄일 때)
+     * - ids 는 항상 응답에 포함됨
+     */
+    public Mono<Map<String, Object>> getRange(String collectionId, int limit, int offset, List<String> include) {
+        Map<String, Object> payload = Map.of(
+                "limit", limit,
+                "offset", offset,
+                "include", include == null ? List.of() : include
+        );
+
+        return chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/get", tenant, database, collectionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.error("Chroma GET error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("Chroma get failed: " + body);
+                        })
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
+    /** 컬렉션 레코드 수 */
+    public Mono<Integer> count(String collectionId) {
+        return chroma.get()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/count", tenant, database, collectionId)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.error("Chroma count error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("Chroma count failed: " + body);
+                        })
+                )
+                .bodyToMono(Integer.class);
+    }
+
+    /* =======================
+     * Query
+     * ======================= */
+
+    /**
+     * 코사인 기반 유사도 질의
+     */
+    public Mono<Map<String, Object>> query(String collectionId, List<Float> queryEmbedding, int topK) {
+        Map<String, Object> payload = Map.of(
+                "query_embeddings", List.of(queryEmbedding == null ? List.of() : queryEmbedding),
+                "n_results", topK,
+                "include", List.of("documents", "metadatas", "distances")
+        );
+
+        return chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/{cid}/query", tenant, database, collectionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .retrieve()
+                .onStatus(s -> s.value() == 404, resp ->
+                        resp.bodyToMono(String.class).defaultIfEmpty("").map(body ->
+                                new CollectionNotFoundException("Chroma collection not found: " + collectionId))
+                )
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> {
+                            log.error("Chroma query error {} body={}", resp.statusCode(), body);
+                            return new RuntimeException("Chroma query failed: " + body);
+                        })
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+    /**
+     * 컬렉션 이름으로 조회 후 query 실행 (없으면 생성)
+     * - 이름 → id 는 캐시 사용, 캐시된 id 가 404면 한 번만 다시 확인 후 재시도
+     */
+    public Mono<Map<String, Object>> queryByName(String collectionName, List<Float> queryEmbedding, int topK) {
+        return ensureCollectionId(collectionName)
+                .flatMap(cid -> query(cid, queryEmbedding, topK)
+                        .onErrorResume(CollectionNotFoundException.class, e -> {
+                            log.info("cached collection id is stale, re-resolve: name={}, cid={}", collectionName, cid);
+                            collectionCache.invalidate(collectionName);
+                            return ensureCollectionId(collectionName)
+                                    .flatMap(fresh -> query(fresh, queryEmbedding, topK));
+                        }));
+    }
+
+    /** 컬렉션 이름으로 id 확보 (없으면 생성). 결과는 ChromaCollectionCache 에 보관 */
+    public Mono<String> ensureCollectionId(String collectionName) {
+        // suppressCancel: 구독 취소가 다른 호출자와 공유 중인 조회까지 취소하지 않도록
+        return Mono.fromFuture(() -> collectionCache.resolveAsync(collectionName,
+                () -> fetchOrCreateCollectionId(collectionName).toFuture()), true);
+    }
+
+    /** 캐시된 id 무효화 (컬렉션 삭제/재생성 후 404를 받은 경우 등) */
+    public void invalidateCollectionId(String collectionName) {
+        collectionCache.invalidate(collectionName);
+    }
+
+    private Mono<String> fetchOrCreateCollectionId(String collectionName) {
+        // 1) 이름으로 get
+        Mono<String> existing = chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections/get", tenant, database)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name", collectionName))
+                .exchangeToMono(resp -> {
+                    if (resp.statusCode().is2xxSuccessful()) {
+                        return resp.bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                                .mapNotNull(map -> (String) map.get("id"));
+                    } else if (resp.statusCode().value() == 404) {
+                        return resp.releaseBody().then(Mono.empty()); // 없으면 empty
+                    } else {
+                        return resp.bodyToMono(String.class)
+                                .flatMap(body -> Mono.error(new RuntimeException("get collection by name failed: " + body)));
+                    }
+                });
+
+        // 2) 없으면 생성
+        Mono<String> create = chroma.post()
+                .uri("/tenants/{t}/databases/{d}/collections", tenant, database)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name", collectionName))
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, resp ->
+                        resp.bodyToMono(String.class).map(body -> new RuntimeException("create collection failed: " + body))
+                )
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .mapNotNull(created -> (String) created.get("id"));
+
+        return existing.switchIfEmpty(create)
+                .doOnNext(id -> log.info("chroma collection resolved: {} -> {}", collectionName, id));
+    }
+
+}
+
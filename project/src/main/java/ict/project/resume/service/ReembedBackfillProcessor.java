@@ -0,0 +1,52 @@
+package ict.project.resume.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 재임베딩 백필: 페이지 문서를 현재 임베딩 모델로 다시 임베딩해서 같은 id 로 교체(/upsert)
+ * - 임베딩 모델을 바꾼 뒤 기존 컬렉션을 다시 색인할 때 사용
+ * - 한 페이지 = /embeddings 배치 요청 + /upsert 한 번
+ */
+@Component
+@RequiredArgsConstructor
+public class ReembedBackfillProcessor implements BackfillPageProcessor {
+
+    private final EmbeddingService embeddingService;
+    private final ChromaService chromaService;
+
+    @Override
+    public String name() {
+        return "reembed";
+    }
+
+    @Override
+    public List<String> include() {
+        return List.of("documents");
+    }
+
+    @Override
+    public void process(String collectionId, Page page) {
+        if (page.documents() == null) return;
+
+        List<String> ids = new ArrayList<>(page.size());
+        List<String> docs = new ArrayList<>(page.size());
+        for (int i = 0; i < page.size(); i++) {
+            String doc = page.documents().get(i);
+            if (doc == null || doc.isBlank()) continue; // 본문 없는 레코드는 그대로 둠
+            ids.add(page.ids().get(i));
+            docs.add(doc);
+        }
+        if (ids.isEmpty()) return;
+
+        List<float[]> vectors = embeddingService.embedAll(docs);
+        List<List<Float>> embeddings = new ArrayList<>(vectors.size());
+        for (float[] v : vectors) embeddings.add(EmbeddingService.toList(v));
+
+        // 문서/메타데이터는 그대로 두고 임베딩만 교체
+        chromaService.replaceBatch(collectionId, ids, null, embeddings, null);
+    }
+}
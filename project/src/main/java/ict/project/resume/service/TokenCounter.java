@@ -0,0 +1,146 @@
+package ict.project.resume.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 로컬 BPE 토큰 카운터 (jtokkit, OpenAI tiktoken 과 동일한 인코딩)
+ * - 문자 수 기반 추정(1토큰≈4문자)은 한글에서 크게 어긋남 → 프롬프트/임베딩 입력 상한을 토큰으로 계산
+ * - 채팅 모델(openai.chatModel)과 임베딩 모델(openai.embeddings.model) 인코딩을 각각 사용
+ * - Encoding 은 스레드 안전, 카운터는 LongAdder → 요청 스레드에서 그대로 호출
+ * - 호출 지점(site)별 토큰 사용량/잘림 통계: stats()
+ */
+@Slf4j
+@Component
+public class TokenCounter {
+
+    /** 호출 지점별 통계 */
+    private static final class Stat {
+        final LongAdder calls = new LongAdder();
+        /** 인코딩 없이 통과시킨 짧은 입력 (토큰 수를 세지 않음) */
+        final LongAdder unmeasured = new LongAdder();
+        final LongAdder tokens = new LongAdder();
+        final LongAdder truncations = new LongAdder();
+    }
+
+    private final Encoding chat;
+    private final Encoding embedding;
+    private final int embeddingMaxTokens;
+    private final Map<String, Stat> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenCounter(
+            @Value("${openai.chatModel:gpt-4o-mini}") String chatModel,
+            @Value("${openai.embeddings.model:text-embedding-3-small}") String embeddingModel,
+            @Value("${openai.embeddings.max-input-tokens:8000}") int embeddingMaxTokens
+    ) {
+        EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+        this.chat = encodingFor(registry, chatModel);
+        this.embedding = encodingFor(registry, embeddingModel);
+        this.embeddingMaxTokens = embeddingMaxTokens;
+        log.info("TokenCounter: chat={} ({}), embedding={} ({}), embeddingMaxTokens={}",
+                chatModel, chat.getName(), embeddingModel, embedding.getName(), embeddingMaxTokens);
+    }
+
+    /** 스프링 밖(벤치마크 등)용: 기본 모델 */
+    public TokenCounter() {
+        this("gpt-4o-mini", "text-embedding-3-small", 8000);
+    }
+
+    /** 채팅 모델 기준 토큰 수 */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) return 0;
+        return chat.countTokensOrdinary(text);
+    }
+
+    /** 채팅 모델 기준 maxTokens 이하로 자르기 */
+    public String truncate(String site, String text, int maxTokens) {
+        return truncate(chat, site, text, maxTokens);
+    }
+
+    /** 임베딩 모델 입력 상한(openai.embeddings.max-input-tokens)으로 자르기 */
+    public String truncateForEmbedding(String site, String text) {
+        return truncate(embedding, site, text, embeddingMaxTokens);
+    }
+
+    /** 실제로 보낸 토큰 수 기록 (프롬프트 조립 결과 등) */
+    public void record(String site, int tokens) {
+        Stat s = stat(site);
+        s.calls.increment();
+        s.tokens.add(tokens);
+    }
+
+    /** 호출 지점별 누적 통계 */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new TreeMap<>();
+        stats.forEach((site, s) -> {
+            long calls = s.calls.sum();
+            long unmeasured = s.unmeasured.sum();
+            long tokens = s.tokens.sum();
+            long measured = calls - unmeasured;
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("calls", calls);
+            m.put("unmeasured", unmeasured);
+            m.put("tokens", tokens);
+            m.put("avgTokens", measured <= 0 ? 0 : tokens / measured);
+            m.put("truncations", s.truncations.sum());
+            out.put(site, m);
+        });
+        return out;
+    }
+
+    private String truncate(Encoding enc, String site, String text, int maxTokens) {
+        if (text == null || text.isEmpty()) return text == null ? "" : text;
+        Stat s = stat(site);
+        s.calls.increment();
+
+        // 토큰 수 ≤ UTF-8 바이트 수 ≤ 문자 수 * 3 → 짧으면 인코딩 없이 그대로 통과
+        if ((long) text.length() * 3 <= maxTokens) {
+            s.unmeasured.increment();
+            return text;
+        }
+
+        // encodeOrdinary: 사용자 텍스트 안의 <|endoftext|> 같은 특수 토큰 문자열도 일반 텍스트로 취급
+        EncodingResult r = enc.encodeOrdinary(text, maxTokens);
+        if (!r.isTruncated()) {
+            s.tokens.add(r.getTokens().size());
+            return text;
+        }
+
+        // 잘린 양을 알려고 전체를 다시 인코딩하지 않음 (maxTokens 까지만 인코딩한 의미가 없어짐)
+        s.tokens.add(maxTokens);
+        s.truncations.increment();
+        String cut = enc.decode(r.getTokens());
+        // 한글 한 글자가 여러 토큰으로 나뉘는 경우 끝에 깨진 글자(U+FFFD)가 남을 수 있음
+        int end = cut.length();
+        while (end > 0 && cut.charAt(end - 1) == '\uFFFD') end--;
+        return cut.substring(0, end);
+    }
+
+    private Stat stat(String site) {
+        return stats.computeIfAbsent(site == null ? "default" : site, k -> new Stat());
+    }
+
+    /** 모델명 → 인코딩 (레지스트리에 없으면 계열로 추정: gpt-4o/o 시리즈 = o200k, 그 외 cl100k) */
+    private static Encoding encodingFor(EncodingRegistry registry, String model) {
+        return registry.getEncodingForModel(model).orElseGet(() -> {
+            String m = model == null ? "" : model.toLowerCase();
+            boolean o200k = m.startsWith("gpt-4o") || m.startsWith("gpt-4.1") || m.startsWith("gpt-5")
+                    || m.matches("^o\\d.*");
+            return registry.getEncoding(o200k ? EncodingType.O200K_BASE : EncodingType.CL100K_BASE);
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package ict.project.resume.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * 임베딩 벡터 바이너리 인코딩 (rag_chunk.embedding BLOB)
+ *
+ * 레이아웃 (LE)
+ *   [0, 8)   헤더: magic 'V'(1) , version(1), format(1), reserved(1), dim(int)
+ *   F32      dim * float32
+ *   I8       scale(float32) + dim * int8   (대칭 양자화: v ≈ q * scale, scale = max|v| / 127)
+ *
+ * - F32 는 JSON 텍스트 대비 약 1/4 크기, 디코딩 없이 FloatBuffer 뷰로 바로 읽음
+ * - I8 은 F32 의 약 1/4 (코사인 유사도 재정렬 용도로는 오차가 충분히 작음)
+ */
+public final class VectorCodec {
+
+    public enum Format { F32, I8 }
+
+    public static final int HEADER_BYTES = 8;
+
+    private static final byte MAGIC = 'V';
+    private static final byte VERSION = 1;
+
+    private VectorCodec() {}
+
+    public static byte[] encode(float[] vec, Format format) {
+        int dim = vec == null ? 0 : vec.length;
+        int payload = format == Format.I8 ? Float.BYTES + dim : dim * Float.BYTES;
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + payload).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put(MAGIC).put(VERSION).put((byte) format.ordinal()).put((byte) 0).putInt(dim);
+
+        if (format == Format.F32) {
+            buf.asFloatBuffer().put(vec, 0, dim);
+        } else {
+            float maxAbs = 0f;
+            for (int i = 0; i < dim; i++) maxAbs = Math.max(maxAbs, Math.abs(vec[i]));
+            float scale = maxAbs == 0f ? 1f : maxAbs / 127f;
+            buf.putFloat(scale);
+            for (int i = 0; i < dim; i++) {
+                buf.put((byte) Math.max(-127, Math.min(127, Math.round(vec[i] / scale))));
+            }
+        }
+        return buf.array();
+    }
+
+    public static Format format(byte[] encoded) {
+        checkHeader(encoded);
+        return Format.values()[encoded[2]];
+    }
+
+    public static int dimension(byte[] encoded) {
+        checkHeader(encoded);
+        return ByteBuffer.wrap(encoded, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    /**
+     * 읽기 전용 FloatBuffer 뷰
+     * - F32: 복사 없이 byte[] 위에 바로 뷰 (zero-copy)
+     * - I8 : 역양자화한 float[] 를 감쌈
+     */
+    public static FloatBuffer view(byte[] encoded) {
+        if (format(encoded) == Format.I8) return FloatBuffer.wrap(decode(encoded)).asReadOnlyBuffer();
+        int dim = dimension(encoded);
+        return ByteBuffer.wrap(encoded, HEADER_BYTES, dim * Float.BYTES).slice()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer()
+                .asReadOnlyBuffer();
+    }
+
+    public static float[] decode(byte[] encoded) {
+        int dim = dimension(encoded);
+        float[] out = new float[dim];
+        if (format(encoded) == Format.F32) {
+            ByteBuffer.wrap(encoded, HEADER_BYTES, dim * Float.BYTES).slice()
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .get(out);
+        } else {
+            float scale = ByteBuffer.wrap(encoded, HEADER_BYTES, Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).getFloat();
+            int base = HEADER_BYTES + Float.BYTES;
+            for (int i = 0; i < dim; i++) out[i] = encoded[base + i] * scale;
+        }
+        return out;
+    }
+
+    /** 디코딩(배열 생성) 없이 내적 — DB 에서 읽은 후보를 질의 벡터로 재정렬할 때 */
+    public static float dot(byte[] encoded, float[] query) {
+        int dim = Math.min(dimension(encoded), query.length);
+        float sum = 0f;
+        if (format(encoded) == Format.F32) {
+            ByteBuffer buf = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < dim; i++) sum += buf.getFloat(HEADER_BYTES + i * Float.BYTES) * query[i];
+        } else {
+            float scale = ByteBuffer.wrap(encoded, HEADER_BYTES, Float.BYTES).order(ByteOrder.LITTLE_ENDIAN).getFloat();
+            int base = HEADER_BYTES + Float.BYTES;
+            for (int i = 0; i < dim; i++) sum += encoded[base + i] * query[i];
+            sum *= scale;
+        }
+        return sum;
+    }
+
+    private static void checkHeader(byte[] encoded) {
+        if (encoded == null || encoded.length < HEADER_BYTES || encoded[0] != MAGIC) {
+            throw new IllegalArgumentException("not an encoded vector");
+        }
+        if (encoded[1] != VERSION || encoded[2] < 0 || encoded[2] >= Format.values().length) {
+            throw new IllegalArgumentException("unsupported vector encoding: version=" + encoded[1] + ", format=" + encoded[2]);
+        }
+        // 잘린 값(컬럼 크기 초과 등)은 디코딩 도중이 아니라 여기서 거부
+        long dim = ByteBuffer.wrap(encoded, 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        long payload = encoded[2] == Format.I8.ordinal() ? Float.BYTES + dim : dim * Float.BYTES;
+        if (dim < 0 || encoded.length != HEADER_BYTES + payload) {
+            throw new IllegalArgumentException("corrupt vector: dim=" + dim + ", bytes=" + encoded.length);
+        }
+    }
+}
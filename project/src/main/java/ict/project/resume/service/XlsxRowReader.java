@@ -0,0 +1,317 @@
+package ict.project.resume.service;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * XLSX 첫 시트를 행 단위로 스트리밍 읽기 (POI SAX 이벤트 모델)
+ * - XSSFWorkbook 처럼 시트 전체 DOM 을 만들지 않음 → 파일 크기와 무관하게 힙 사용량 일정
+ * - 업로드 스트림은 임시 파일로 받아서 OPCPackage 를 파일 기반으로 연다 (스트림으로 열면 zip 전체를 메모리에 올림)
+ * - 공유 문자열(sharedStrings.xml)도 임시 파일에 UTF-8 로 풀어 두고 오프셋만 메모리에 보관
+ *   (자소서처럼 셀마다 긴 본문이면 공유 문자열 테이블이 곧 파일 전체 텍스트라서)
+ * - 헤더(첫 행)는 건너뛰고, 행마다 (0-based 행 번호, A열, B열) 을 콜백
+ * - 숫자 셀은 표시 서식이 아니라 원래 값 그대로 (예전 setCellType(STRING) 과 같게 → essayId:i 청크 id 유지)
+ */
+final class XlsxRowReader {
+
+    @FunctionalInterface
+    interface RowHandler {
+        void row(int rowIndex, String colA, String colB) throws Exception;
+    }
+
+    private XlsxRowReader() {}
+
+    /** 업로드 스트림 → 임시 파일로 받은 뒤 read(Path) */
+    static int read(InputStream in, RowHandler handler) throws Exception {
+        Path tmp = Files.createTempFile("ingest-", ".xlsx");
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            return read(tmp, handler);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** @return 콜백한 행 수 */
+    static int read(Path xlsx, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(xlsx.toFile(), PackageAccess.READ);
+             SpooledSharedStrings strings = SpooledSharedStrings.load(pkg)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) return 0;
+
+            RowCollector collector = new RowCollector(handler);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, collector, new RawValueFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            } catch (HandlerFailure f) {
+                // 콜백에서 난 예외는 SAX 를 뚫고 나오도록 감싸 두었으므로 원래 예외로 복원
+                throw f.cause;
+            }
+            return collector.rows;
+        }
+    }
+
+    /** 헤더 제외 행 수 (진행률/ETA 용 사전 스캔: 공유 문자열/셀 값은 읽지 않고 <row> 만 셈) */
+    static int countRows(Path xlsx) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(xlsx.toFile(), PackageAccess.READ)) {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            if (!sheets.hasNext()) return 0;
+            int[] rows = {0};
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new DefaultHandler() {
+                    @Override
+                    public void startElement(String uri, String localName, String qName, Attributes atts) {
+                        if (!"row".equals(localName)) return;
+                        String r = atts.getValue("r"); // 1-based, 1 = 헤더
+                        if (r == null || !"1".equals(r)) rows[0]++;
+                    }
+                });
+                parser.parse(new InputSource(sheet));
+            }
+            return rows[0];
+        }
+    }
+
+    /**
+     * 숫자 셀을 서식(00000, #,##0, 날짜, 11자리 이상의 1.23457E+11 등) 없이 원래 값으로
+     * - XSSFSheetXMLHandler 는 숫자/수식 결과를 formatRawCellContents 로만 넘기므로 여기만 바꾸면 됨
+     */
+    private static final class RawValueFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return NumberToTextConverter.toText(value);
+        }
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            return NumberToTextConverter.toText(value);
+        }
+    }
+
+    /** 시트 SAX 이벤트 → (행, A, B) */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private int rows;
+        private int currentRow;
+        private int nextCol;
+        private String colA;
+        private String colB;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            currentRow = rowNum;
+            nextCol = 0;
+            colA = null;
+            colB = null;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // 셀 참조가 없는 파일도 있음 → 순서대로 열 번호 추정
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : nextCol;
+            nextCol = col + 1;
+            String v = formattedValue == null ? null : formattedValue.trim();
+            if (col == 0) colA = v;        // A열: ID
+            else if (col == 1) colB = v;   // B열: 본문
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (currentRow == 0) return; // 헤더
+            try {
+                handler.row(currentRow, colA, colB);
+                rows++;
+            } catch (Exception e) {
+                throw new HandlerFailure(e);
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+    private static final class HandlerFailure extends RuntimeException {
+        final Exception cause;
+
+        HandlerFailure(Exception cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * 임시 파일 기반 공유 문자열 테이블
+     * - <si> 하나 = 문자열 하나. 서식 run(<r><t>) 은 이어 붙이고, 후리가나(<rPh>) 는 제외
+     * - 메모리에는 문자열별 시작 오프셋(long)만 유지
+     */
+    private static final class SpooledSharedStrings implements SharedStrings, Closeable {
+        private final Path file;
+        private final FileChannel channel;
+        private final long[] offsets; // offsets[i] ~ offsets[i + 1] 이 i번째 문자열
+        private final int count;
+
+        private SpooledSharedStrings(Path file, FileChannel channel, long[] offsets, int count) {
+            this.file = file;
+            this.channel = channel;
+            this.offsets = offsets;
+            this.count = count;
+        }
+
+        static SpooledSharedStrings load(OPCPackage pkg) throws Exception {
+            Path file = Files.createTempFile("ingest-sst-", ".bin");
+            try {
+                SstWriter writer;
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+                    writer = new SstWriter(out);
+                    List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+                    if (!parts.isEmpty()) {
+                        try (InputStream in = parts.get(0).getInputStream()) {
+                            XMLReader parser = XMLHelper.newXMLReader();
+                            parser.setContentHandler(writer);
+                            parser.parse(new InputSource(in));
+                        }
+                    }
+                    writer.flush();
+                }
+                FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+                return new SpooledSharedStrings(file, ch, writer.offsets, writer.count);
+            } catch (Exception e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+
+        @Override
+        public RichTextString getItemAt(int idx) {
+            if (idx < 0 || idx >= count) return new XSSFRichTextString("");
+            long start = offsets[idx];
+            int len = (int) (offsets[idx + 1] - start);
+            ByteBuffer buf = ByteBuffer.allocate(len);
+            try {
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, start + buf.position()) < 0) break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new XSSFRichTextString(new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public int getUniqueCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** sharedStrings.xml SAX → 임시 파일에 문자열을 차례로 기록 */
+    private static final class SstWriter extends DefaultHandler {
+        private final OutputStream out;
+        private final StringBuilder current = new StringBuilder();
+        private long[] offsets = new long[1024];
+        private int count;
+        private long written;
+        private boolean inText;
+        private int phoneticDepth;
+
+        SstWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            switch (localName) {
+                case "si" -> current.setLength(0);
+                case "rPh" -> phoneticDepth++;
+                case "t" -> inText = phoneticDepth == 0;
+                default -> { }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "t" -> inText = false;
+                case "rPh" -> phoneticDepth--;
+                case "si" -> append(current.toString());
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) current.append(ch, start, length);
+        }
+
+        private void append(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (count + 1 >= offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[count] = written;
+            try {
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written += bytes.length;
+            count++;
+            offsets[count] = written;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
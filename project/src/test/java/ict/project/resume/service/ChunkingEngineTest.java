@@ -0,0 +1,177 @@
+package ict.project.resume.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkingEngineTest {
+
+    private static final Pattern SENTENCE_ID = Pattern.compile("S(\\d+)\\b");
+
+    private final TokenCounter tokens = new TokenCounter();
+    private final ChunkingEngine engine = new ChunkingEngine(tokens);
+
+    /** "S{i} ..." 문장들, 7문장마다 줄바꿈 */
+    private static String sentences(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append('S').append(i).append(" 문장은 청크 분할 테스트용 본문입니다");
+            sb.append(i % 3 == 0 ? ". " : "! ");
+            if (i % 7 == 6) sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private List<String> viaReader(String text, ChunkingEngine.Options options) throws IOException {
+        List<String> out = new ArrayList<>();
+        engine.stream(new StringReader(text), options, out::add);
+        return out;
+    }
+
+    private static Set<Integer> ids(String chunk) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        Matcher m = SENTENCE_ID.matcher(chunk);
+        while (m.find()) ids.add(Integer.parseInt(m.group(1)));
+        return ids;
+    }
+
+    @Test
+    void stringReaderAndCharSequenceGiveSameChunks() throws IOException {
+        String text = sentences(3000); // 창(WINDOW_CHARS) 여러 개
+        assertTrue(text.length() > 3 * ChunkingEngine.WINDOW_CHARS);
+        ChunkingEngine.Options options = new ChunkingEngine.Options(300, 100, 20);
+
+        List<String> fromString = engine.chunk(text, options);
+        assertFalse(fromString.isEmpty());
+        assertIterableEquals(fromString, viaReader(text, options));
+        assertIterableEquals(fromString, engine.chunk(new StringBuilder(text), options));
+    }
+
+    @Test
+    void sentenceCrossingWindowBoundaryStaysWhole() throws IOException {
+        String marker = "경계를 넘어가는 문장도 한 문장으로 남아야 합니다 MARKER.";
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < ChunkingEngine.WINDOW_CHARS - marker.length() / 2) sb.append("앞 문장. ");
+        sb.append('\n').append(marker).append(" 뒤 문장. 또 다른 문장.");
+        String text = sb.toString();
+        int at = text.indexOf(marker);
+        assertTrue(at < ChunkingEngine.WINDOW_CHARS && at + marker.length() > ChunkingEngine.WINDOW_CHARS);
+
+        ChunkingEngine.Options options = ChunkingEngine.Options.chars(2000);
+        List<String> fromReader = viaReader(text, options);
+
+        assertIterableEquals(engine.chunk(text, options), fromReader);
+        // 다음 창으로 넘어간 문장 앞의 줄바꿈도 유지
+        assertTrue(fromReader.stream().anyMatch(c -> c.contains("\n" + marker)), "marker sentence split or newline lost");
+    }
+
+    @Test
+    void sentenceLongerThanWindowIsStillChunked() throws IOException {
+        String text = "가".repeat(ChunkingEngine.WINDOW_CHARS * 2 + 10);
+        List<String> chunks = viaReader(text, ChunkingEngine.Options.chars(1000));
+
+        assertEquals(text, String.join("", chunks));
+        assertTrue(chunks.stream().allMatch(c -> c.length() <= 1000));
+    }
+
+    @Test
+    void overlapIsLimitedToOverlapTokens() {
+        int maxTokens = 120;
+        int overlapTokens = 40;
+        List<String> chunks = engine.chunk(sentences(200), new ChunkingEngine.Options(0, maxTokens, overlapTokens));
+        assertTrue(chunks.size() > 2);
+
+        String[] all = sentences(200).split("(?<=[.!])\\s+");
+        boolean overlapped = false;
+        for (int i = 0; i < chunks.size(); i++) {
+            Set<Integer> cur = ids(chunks.get(i));
+            int chunkTokens = cur.stream().mapToInt(id -> tokens.count(all[id].trim())).sum();
+            assertTrue(chunkTokens <= maxTokens, "chunk " + i + " has " + chunkTokens + " tokens");
+            if (i == 0) continue;
+
+            // 겹치는 문장 = 앞 청크의 끝 문장들 = 이번 청크의 앞 문장들
+            List<Integer> prev = new ArrayList<>(ids(chunks.get(i - 1)));
+            List<Integer> shared = cur.stream().filter(prev::contains).toList();
+            if (shared.isEmpty()) continue;
+            overlapped = true;
+            assertEquals(prev.subList(prev.size() - shared.size(), prev.size()), shared);
+            assertEquals(shared, new ArrayList<>(cur).subList(0, shared.size()));
+            int sharedTokens = shared.stream().mapToInt(id -> tokens.count(all[id].trim())).sum();
+            assertTrue(sharedTokens <= overlapTokens, "overlap of " + sharedTokens + " tokens");
+        }
+        assertTrue(overlapped, "no chunk repeated the previous chunk's tail");
+    }
+
+    @Test
+    void noOverlapMeansEachSentenceOnce() {
+        List<String> chunks = engine.chunk(sentences(200), new ChunkingEngine.Options(300, 0, 0));
+        List<Integer> seen = new ArrayList<>();
+        for (String c : chunks) seen.addAll(ids(c));
+        assertEquals(200, seen.size());
+        for (int i = 0; i < seen.size(); i++) assertEquals(i, seen.get(i).intValue());
+    }
+
+    @Test
+    void sentenceLongerThanLimitIsSplitAtWhitespace() {
+        String sentence = ("word ".repeat(1000)).trim() + ".";
+        List<String> chunks = engine.chunk(sentence, ChunkingEngine.Options.chars(120));
+
+        assertTrue(chunks.size() > 1);
+        for (String c : chunks) {
+            assertTrue(c.length() <= 120, "chunk of " + c.length() + " chars");
+            assertEquals(c.trim(), c);
+            assertFalse(c.startsWith("ord") || c.endsWith(" wor"), "split inside a word: " + c);
+        }
+        assertEquals(sentence, String.join(" ", chunks));
+    }
+
+    @Test
+    void sentenceLongerThanTokenLimitIsSplitByTokens() {
+        String sentence = ("토큰 상한을 넘는 아주 긴 문장 ".repeat(200)).trim() + ".";
+        List<String> chunks = engine.chunk(sentence, new ChunkingEngine.Options(0, 50, 0));
+
+        assertTrue(chunks.size() > 1);
+        for (String c : chunks) assertTrue(tokens.count(c) <= 50, "chunk of " + tokens.count(c) + " tokens");
+        assertEquals(sentence.replace(" ", ""), String.join("", chunks).replace(" ", ""));
+    }
+
+    @Test
+    void legacyLayoutSlicesLongSentencesExactly() {
+        String sentence = "x".repeat(250) + " " + "y".repeat(100) + ".";
+        List<String> chunks = engine.chunk(sentence, new ChunkingEngine.Options(120, 0, 0, true));
+
+        assertEquals(List.of(sentence.substring(0, 120), sentence.substring(120, 240), sentence.substring(240)), chunks);
+    }
+
+    @Test
+    void crlfInputIsNormalized() throws IOException {
+        String text = "첫 줄입니다.\r\n둘째 줄입니다.\r\n제목\r\n셋째 줄입니다.\r\n";
+        List<String> chunks = engine.chunk(text, ChunkingEngine.Options.chars(1000));
+
+        assertEquals(1, chunks.size());
+        String chunk = chunks.get(0);
+        assertFalse(chunk.contains("\r"), "CR left in chunk");
+        assertTrue(chunk.startsWith("첫 줄입니다.\n둘째 줄입니다."), chunk);
+        assertIterableEquals(chunks, viaReader(text, ChunkingEngine.Options.chars(1000)));
+
+        // legacyLayout: 예전 Chunker 와 같게 문장 사이는 공백, 문장 안 줄바꿈은 손대지 않음
+        List<String> legacy = engine.chunk(text, new ChunkingEngine.Options(1000, 0, 0, true));
+        assertEquals(List.of("첫 줄입니다. 둘째 줄입니다. 제목\r\n셋째 줄입니다."), legacy);
+    }
+
+    @Test
+    void blankInputGivesNoChunks() throws IOException {
+        assertTrue(engine.chunk(null, ChunkingEngine.Options.chars(100)).isEmpty());
+        assertTrue(engine.chunk(" \r\n\t ", ChunkingEngine.Options.chars(100)).isEmpty());
+        assertTrue(viaReader("   \n  ", ChunkingEngine.Options.chars(100)).isEmpty());
+    }
+}
@@ -0,0 +1,141 @@
+package ict.project.resume.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorCodecTest {
+
+    private static float[] randomVector(int dim, long seed) {
+        Random r = new Random(seed);
+        float[] v = new float[dim];
+        for (int i = 0; i < dim; i++) v[i] = (float) r.nextGaussian() * 0.05f;
+        return v;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    @Test
+    void f32RoundTripIsExact() {
+        float[] v = randomVector(1536, 1);
+        byte[] enc = VectorCodec.encode(v, VectorCodec.Format.F32);
+
+        assertEquals(VectorCodec.HEADER_BYTES + 1536 * Float.BYTES, enc.length);
+        assertEquals(VectorCodec.Format.F32, VectorCodec.format(enc));
+        assertEquals(1536, VectorCodec.dimension(enc));
+        assertArrayEquals(v, VectorCodec.decode(enc));
+    }
+
+    @Test
+    void i8RoundTripStaysWithinOneQuantizationStep() {
+        float[] v = randomVector(1536, 2);
+        byte[] enc = VectorCodec.encode(v, VectorCodec.Format.I8);
+
+        assertEquals(VectorCodec.HEADER_BYTES + Float.BYTES + 1536, enc.length);
+        assertEquals(VectorCodec.Format.I8, VectorCodec.format(enc));
+        assertEquals(1536, VectorCodec.dimension(enc));
+
+        float maxAbs = 0f;
+        for (float x : v) maxAbs = Math.max(maxAbs, Math.abs(x));
+        float step = maxAbs / 127f;
+        float[] back = VectorCodec.decode(enc);
+        for (int i = 0; i < v.length; i++) {
+            assertEquals(v[i], back[i], step / 2 + 1e-7f, "index " + i);
+        }
+    }
+
+    @Test
+    void zeroVectorRoundTrips() {
+        float[] zero = new float[8];
+        for (VectorCodec.Format f : VectorCodec.Format.values()) {
+            byte[] enc = VectorCodec.encode(zero, f);
+            assertArrayEquals(zero, VectorCodec.decode(enc), f.name());
+            assertEquals(0f, VectorCodec.dot(enc, randomVector(8, 3)), f.name());
+        }
+    }
+
+    @Test
+    void emptyVectorRoundTrips() {
+        for (VectorCodec.Format f : VectorCodec.Format.values()) {
+            byte[] enc = VectorCodec.encode(new float[0], f);
+            assertEquals(0, VectorCodec.dimension(enc));
+            assertEquals(0, VectorCodec.decode(enc).length);
+        }
+    }
+
+    @Test
+    void viewMatchesDecode() {
+        float[] v = randomVector(64, 4);
+        for (VectorCodec.Format f : VectorCodec.Format.values()) {
+            byte[] enc = VectorCodec.encode(v, f);
+            float[] decoded = VectorCodec.decode(enc);
+            FloatBuffer view = VectorCodec.view(enc);
+
+            assertTrue(view.isReadOnly());
+            assertEquals(decoded.length, view.remaining());
+            for (int i = 0; i < decoded.length; i++) assertEquals(decoded[i], view.get(i), f.name() + " index " + i);
+        }
+    }
+
+    @Test
+    void f32ViewIsBackedByTheEncodedBytes() {
+        float[] v = {1f, 2f, 3f};
+        byte[] enc = VectorCodec.encode(v, VectorCodec.Format.F32);
+        FloatBuffer view = VectorCodec.view(enc);
+
+        // 원본 바이트를 바꾸면 뷰에도 보여야 함 (복사본이 아님)
+        byte[] four = VectorCodec.encode(new float[]{4f}, VectorCodec.Format.F32);
+        System.arraycopy(four, VectorCodec.HEADER_BYTES, enc, VectorCodec.HEADER_BYTES, Float.BYTES);
+        assertEquals(4f, view.get(0));
+    }
+
+    @Test
+    void dotMatchesDecodedDotProduct() {
+        float[] v = randomVector(1536, 5);
+        float[] q = randomVector(1536, 6);
+        for (VectorCodec.Format f : VectorCodec.Format.values()) {
+            byte[] enc = VectorCodec.encode(v, f);
+            float expected = dot(VectorCodec.decode(enc), q);
+            assertEquals(expected, VectorCodec.dot(enc, q), Math.abs(expected) * 1e-4f + 1e-6f, f.name());
+        }
+    }
+
+    @Test
+    void dotUsesTheShorterDimension() {
+        byte[] enc = VectorCodec.encode(new float[]{1f, 2f, 3f}, VectorCodec.Format.F32);
+        assertEquals(5f, VectorCodec.dot(enc, new float[]{1f, 2f}));
+    }
+
+    @Test
+    void rejectsInvalidHeaders() {
+        byte[] good = VectorCodec.encode(new float[]{1f, 2f}, VectorCodec.Format.F32);
+
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(new byte[3]));
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode("[0.1, 0.2]".getBytes()));
+
+        byte[] badMagic = good.clone();
+        badMagic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(badMagic));
+
+        byte[] badVersion = good.clone();
+        badVersion[1] = 9;
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.format(badVersion));
+
+        byte[] badFormat = good.clone();
+        badFormat[2] = 7;
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.view(badFormat));
+
+        byte[] truncated = Arrays.copyOf(good, good.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.decode(truncated));
+        assertThrows(IllegalArgumentException.class, () -> VectorCodec.dot(truncated, new float[]{1f, 1f}));
+    }
+}